@@ -2,19 +2,20 @@ package gestion;
 
 import java.io.File;
 import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Scanner;
 
 import listas.Lista_tareas;
 
-import tareas.Generar_ID;
+import tareas.Conjunto_IDs;
+import tareas.Fuente_IDs;
 import tareas.Tarea;
 import tareas.Tarea_con_plazo;
+import tareas.Tarea_simple;
 import usuarios.Grupo_usuarios;
 import usuarios.Propietario;
+import usuarios.Registro_pendientes;
 import usuarios.Usuario;
 
 /**
@@ -25,6 +26,21 @@ import usuarios.Usuario;
  */
 public class Acceso_datos {
 
+	/**
+	 * Posicin del fichero de usuarios en los vectores de versiones.
+	 */
+	static final int USUARIOS = 0;
+	
+	/**
+	 * Posicin del fichero de grupos en los vectores de versiones.
+	 */
+	static final int GRUPOS = 1;
+	
+	/**
+	 * Posicin del fichero de tareas en los vectores de versiones.
+	 */
+	static final int TAREAS = 2;
+
 	/**
 	 * Lista de todas las tareas disponibles.
 	 */
@@ -40,11 +56,53 @@ public class Acceso_datos {
 	 */
 	private LinkedList<Grupo_usuarios> grupos;
 	
+	/**
+	 * ndice de los usuarios segn su nombre. Se mantiene sincronizado con la lista {@link #users}.
+	 */
+	private HashMap<String, Usuario> indiceUsuarios = new HashMap<String, Usuario>();
+	
+	/**
+	 * ndice de los grupos segn su nombre. Se mantiene sincronizado con la lista {@link #grupos}.
+	 */
+	private HashMap<String, Grupo_usuarios> indiceGrupos = new HashMap<String, Grupo_usuarios>();
+	
+	/**
+	 * Registro de las invitaciones y solicitudes de admisin a grupos que an no se han respondido.
+	 */
+	private Registro_pendientes pendientes = new Registro_pendientes();
+	
 	/**
 	 * Usuario que se usa en la ejecucin del programa.
 	 */
 	private Usuario u;
 	
+	/**
+	 * Generador de IDs que se usa en lugar del de la lista de tareas, si se ha establecido.
+	 */
+	private Fuente_IDs generador;
+	
+	/**
+	 * Diario en el que se anotan los cambios segn se hacen. Si es null, los cambios slo se guardan al salir.
+	 */
+	private Diario diario;
+	
+	/**
+	 * Mecanismo que vuelca peridicamente los datos a los ficheros y vaca el diario, si se usa.
+	 */
+	private Punto_control puntoControl;
+	
+	/**
+	 * Nmero de cambios hechos en los usuarios y en los grupos, en las posiciones {@link #USUARIOS} y {@link #GRUPOS}.
+	 * Los cambios en las tareas los cuenta la propia {@link listas.Lista_tareas Lista_tareas}.
+	 */
+	private long [] versiones = new long [3];
+	
+	/**
+	 * Versin de los datos que contiene cada fichero, segn las posiciones {@link #USUARIOS}, {@link #GRUPOS} y
+	 * {@link #TAREAS}.
+	 */
+	private long [] guardadas = new long [3];
+	
 	/**
 	 * Mecanismo de entrada de datos por teclado.
 	 */
@@ -60,6 +118,10 @@ public class Acceso_datos {
 	 */
 	protected Acceso_datos(LinkedList<Usuario> users){
 		this.users = users;
+		for(Usuario us : users){
+			if(!indiceUsuarios.containsKey(us.getNombre()))
+				indiceUsuarios.put(us.getNombre(), us);
+		}
 	}
 	
 	//MTODOS GETTERS Y SETTERS DE LA CLASE
@@ -71,9 +133,11 @@ public class Acceso_datos {
 	 * @param u Usuario actual.
 	 * @param nuevo Variable que indica si es un nuevo usuario o no.
 	 */
-	public void setUsuario(Usuario u, boolean nuevo){
+	public synchronized void setUsuario(Usuario u, boolean nuevo){
 		if(nuevo){
 			users.add(u);
+			indiceUsuarios.put(u.getNombre(), u);
+			notificar(Diario.USUARIO_NUEVO, u.getNombre(), u.getEmail());
 		}
 		this.u = u;
 	}
@@ -92,6 +156,13 @@ public class Acceso_datos {
 	 */
 	public void setGrupos(LinkedList<Grupo_usuarios> grupos){
 		this.grupos = grupos;
+		indiceGrupos.clear();
+		if(grupos != null){
+			for(Grupo_usuarios g : grupos){
+				if(!indiceGrupos.containsKey(g.getNombre()))
+					indiceGrupos.put(g.getNombre(), g);
+			}
+		}
 	}
 	
 	/**
@@ -100,14 +171,309 @@ public class Acceso_datos {
 	 */
 	public void setLista(Lista_tareas l){
 		this.l = l;
+		guardadas[TAREAS] = getVersion(TAREAS);
+	}
+	
+	/**
+	 * Mtodo que permite establecer el generador de IDs que se usar, en lugar del de la lista de tareas.
+	 * @param generador Generador de IDs.
+	 */
+	public void setGenerador(Fuente_IDs generador){
+		this.generador = generador;
 	}
 	
 	/**
-	 * Mtodo que devuelve un generador de IDs basado en la lista de tareas.
+	 * Mtodo que devuelve el generador de IDs que se debe usar.
+	 * Si no se ha establecido ninguno con {@link #setGenerador(Fuente_IDs)}, es el de la lista de tareas.
 	 * @return Un Generador de IDs nicas.
 	 */
-	public Generar_ID getGenerador(){
-		return new Generar_ID(l);
+	public Fuente_IDs getGenerador(){
+		if(generador != null)
+			return generador;
+		return l.getGenerador();
+	}
+	
+	/**
+	 * Mtodo que establece el diario en el que se anotarn los cambios a partir de ahora.
+	 * @param diario Diario de cambios.
+	 */
+	void setDiario(Diario diario){
+		this.diario = diario;
+	}
+	
+	/**
+	 * Mtodo que establece el mecanismo de puntos de control que vuelca los datos y vaca el diario.
+	 * @param puntoControl Mecanismo de puntos de control.
+	 */
+	void setPuntoControl(Punto_control puntoControl){
+		this.puntoControl = puntoControl;
+	}
+	
+	/**
+	 * Mtodo que devuelve el nmero de cambios hechos en los datos de un fichero.
+	 * @param fichero {@link #USUARIOS}, {@link #GRUPOS} o {@link #TAREAS}.
+	 * @return La versin actual de los datos del fichero.
+	 */
+	long getVersion(int fichero){
+		if(fichero == TAREAS)
+			return (l != null) ? l.getVersion() : 0;
+		return versiones[fichero];
+	}
+	
+	/**
+	 * Mtodo que indica que un fichero contiene ya una versin de sus datos. Se sincroniza como los mtodos que
+	 * modifican los datos, ya que los puntos de control lo llaman desde su propio hilo.
+	 * @param fichero {@link #USUARIOS}, {@link #GRUPOS} o {@link #TAREAS}.
+	 * @param version Versin de los datos que se ha escrito en el fichero (<i>ver {@link #getVersion(int)}</i>).
+	 */
+	synchronized void setGuardado(int fichero, long version){
+		guardadas[fichero] = version;
+	}
+	
+	/**
+	 * Mtodo que indica si los datos de un fichero han cambiado desde que se leyeron o se guardaron por ltima vez.
+	 * @param fichero {@link #USUARIOS}, {@link #GRUPOS} o {@link #TAREAS}.
+	 * @return true si hay cambios sin guardar en ese fichero.
+	 */
+	synchronized boolean hayCambios(int fichero){
+		return getVersion(fichero) != guardadas[fichero];
+	}
+	
+	/**
+	 * Mtodo que indica si hay algn cambio sin guardar en los ficheros. No recorre los datos, slo compara versiones.
+	 * @return true si hay cambios, false si no los hay.
+	 */
+	public boolean hayCambios(){
+		return hayCambios(USUARIOS) || hayCambios(GRUPOS) || hayCambios(TAREAS);
+	}
+	
+	/**
+	 * Mtodo que cuenta un cambio en los datos del fichero al que afecta, segn su tipo.
+	 * @param tipo Tipo de cambio (<i>ver {@link Diario}</i>).
+	 */
+	private void marcar(String tipo){
+		if(tipo.equals(Diario.USUARIO_NUEVO) || tipo.equals(Diario.EMAIL))
+			versiones[USUARIOS]++;
+		else if(tipo.equals(Diario.GRUPO_NUEVO) || tipo.equals(Diario.GRUPO_ELIMINADO)
+				|| tipo.equals(Diario.MIEMBRO_NUEVO) || tipo.equals(Diario.MIEMBRO_ELIMINADO)
+				|| tipo.equals(Diario.SOLICITUD_NUEVA) || tipo.equals(Diario.SOLICITUD_ELIMINADA)
+				|| tipo.equals(Diario.INVITACION_NUEVA) || tipo.equals(Diario.INVITACION_ELIMINADA))
+			versiones[GRUPOS]++;
+		else if(l != null)
+			l.marcarCambio();
+	}
+	
+	/**
+	 * Mtodo que indica si los cambios se estn anotando en un diario, en cuyo caso ya estn guardados.
+	 * @return true si hay un diario de cambios.
+	 */
+	public boolean tieneDiario(){
+		return diario != null;
+	}
+	
+	/**
+	 * Mtodo que escribe en disco los cambios pendientes del diario y lo cierra.
+	 * Antes deja de hacer puntos de control, esperando a que termine el que se est haciendo.
+	 * @throws Exception Si no se puede escribir el diario.
+	 */
+	public void cerrarDiario() throws Exception{
+		if(puntoControl != null){
+			puntoControl.detener();
+			puntoControl = null;
+		}
+		if(diario != null){
+			diario.cerrar();
+			diario = null;
+		}
+	}
+	
+	/**
+	 * Mtodo por el que pasa cada cambio de los datos: lo cuenta en la versin del fichero al que afecta y lo anota
+	 * en el diario, si lo hay.
+	 * Si no se puede escribir en el diario, el cambio se mantiene en memoria y se avisa por pantalla.
+	 * @param campos Tipo de cambio, seguido de sus datos (<i>ver {@link Diario}</i>).
+	 */
+	private void notificar(String... campos){
+		marcar(campos[0]);
+		if(diario == null)
+			return;
+		try{
+			diario.anotar(campos);
+		}
+		catch(Exception e){
+			System.err.println("Error 12: No se pudo anotar el cambio en el diario: "+e.getMessage());
+		}
+	}
+	
+	/**
+	 * Mtodo que devuelve los campos con los que se anota una tarea nueva en el diario.
+	 * @param t Tarea nueva.
+	 * @return Los campos del cambio.
+	 */
+	private static String [] anotacionTarea(Tarea t){
+		String plazo = (t instanceof Tarea_con_plazo) ? String.valueOf(((Tarea_con_plazo)t).getPlazo()) : "-";
+		String estado = (t.isPendiente()) ? "pendiente" : "terminada";
+		return new String [] {Diario.TAREA_NUEVA, t.getTipo(), String.valueOf(t.getID()), t.getDescripcion(),
+				t.getPropietario().getNombre(), String.valueOf(t.getPrioridad()), estado, plazo, t.toStringDependencias()};
+	}
+	
+	/**
+	 * Mtodo que aplica sobre los datos un cambio ledo del diario, sin volver a anotarlo.
+	 * Los cambios que ya estn aplicados no tienen efecto: una tarea, usuario o grupo nuevo que ya existe, una
+	 * eliminacin de algo que ya no existe, o un cambio sobre una tarea o un grupo que ya se ha eliminado.<br>
+	 * Si el cambio tiene efecto, el fichero al que afecta cuenta como modificado, ya que el cambio no tiene por qu
+	 * estar en l.
+	 * @param cambio Tipo de cambio, seguido de sus datos (<i>ver {@link Diario}</i>).
+	 * @throws Exception Si el cambio est mal formado o no se puede aplicar sobre los datos actuales. En ese caso los
+	 * datos no cuentan como modificados.
+	 */
+	void aplicar(String [] cambio) throws Exception{
+		if(aplicarCambio(cambio))
+			marcar(cambio[0]);
+	}
+	
+	/**
+	 * Mtodo que aplica sobre los datos un cambio ledo del diario (<i>ver {@link #aplicar(String[])}</i>).
+	 * @param cambio Tipo de cambio, seguido de sus datos.
+	 * @return true si el cambio ha modificado los datos, false si ya estaba aplicado.
+	 * @throws Exception Si el cambio est mal formado o no se puede aplicar sobre los datos actuales.
+	 */
+	private boolean aplicarCambio(String [] cambio) throws Exception{
+		String tipo = cambio[0];
+		if(tipo.equals(Diario.TAREA_NUEVA)){
+			Propietario p = buscarPropietario(cambio[4]);
+			if(p == null)
+				throw new Exception("No existe el propietario "+cambio[4]+".");
+			int ID = Integer.parseInt(cambio[2]);
+			if(l.consultarID(ID) != null)
+				return false;
+			int prioridad = Integer.parseInt(cambio[5]);
+			boolean pendiente = cambio[6].equals("pendiente");
+			Conjunto_IDs dependencias = leerDependencias(cambio[8]);
+			Tarea t;
+			if(cambio[1].equals("con_plazo"))
+				t = Tarea_con_plazo.cargar(cambio[3], p, ID, pendiente, dependencias, prioridad, Long.parseLong(cambio[7]));
+			else
+				t = new Tarea_simple(cambio[3], p, ID, pendiente, dependencias, prioridad);
+			l.addTarea(t, u);
+			return true;
+		}
+		if(tipo.equals(Diario.TAREA_ELIMINADA) || tipo.equals(Diario.ESTADO) || tipo.equals(Diario.PRIORIDAD)
+				|| tipo.equals(Diario.PLAZO) || tipo.equals(Diario.DEPENDENCIA_NUEVA)
+				|| tipo.equals(Diario.DEPENDENCIA_ELIMINADA))
+			return aplicarCambioTarea(cambio);
+		if(tipo.equals(Diario.USUARIO_NUEVO)){
+			if(buscarUsuario(cambio[1]) != null)
+				return false;
+			Usuario nuevo = new Usuario(cambio[1]);
+			nuevo.setEmail(cambio[2]);
+			users.add(nuevo);
+			indiceUsuarios.put(nuevo.getNombre(), nuevo);
+			return true;
+		}
+		if(tipo.equals(Diario.EMAIL)){
+			getUsuario(cambio[1]).setEmail(cambio[2]);
+			return true;
+		}
+		if(tipo.equals(Diario.GRUPO_NUEVO)){
+			if(buscarGrupo(cambio[1]) != null)
+				return false;
+			Grupo_usuarios nuevo = new Grupo_usuarios(cambio[1]);
+			grupos.add(nuevo);
+			indiceGrupos.put(nuevo.getNombre(), nuevo);
+			return true;
+		}
+		if(tipo.equals(Diario.GRUPO_ELIMINADO) || tipo.equals(Diario.MIEMBRO_NUEVO)
+				|| tipo.equals(Diario.MIEMBRO_ELIMINADO) || tipo.equals(Diario.SOLICITUD_NUEVA)
+				|| tipo.equals(Diario.SOLICITUD_ELIMINADA) || tipo.equals(Diario.INVITACION_NUEVA)
+				|| tipo.equals(Diario.INVITACION_ELIMINADA))
+			return aplicarCambioGrupo(cambio);
+		throw new Exception("Tipo de cambio desconocido: "+tipo);
+	}
+	
+	/**
+	 * Mtodo que aplica un cambio del diario sobre una tarea ya existente. Si la tarea ya no existe, el cambio no
+	 * tiene efecto, ya que se elimin despus.
+	 * @param cambio Tipo de cambio, seguido de sus datos.
+	 * @return true si el cambio ha modificado los datos, false si ya estaba aplicado.
+	 * @throws Exception Si el cambio est mal formado o no se puede aplicar sobre los datos actuales.
+	 */
+	private boolean aplicarCambioTarea(String [] cambio) throws Exception{
+		String tipo = cambio[0];
+		Tarea t = l.consultarID(Integer.parseInt(cambio[1]));
+		if(t == null)
+			return false;
+		if(tipo.equals(Diario.TAREA_ELIMINADA))
+			l.eliminarTarea(t);
+		else if(tipo.equals(Diario.ESTADO))
+			l.modEstado(t, cambio[2].equals("pendiente"));
+		else if(tipo.equals(Diario.PRIORIDAD))
+			l.modPrioridad(t, Integer.parseInt(cambio[2]));
+		else if(tipo.equals(Diario.PLAZO))
+			l.setCambios(Tarea_con_plazo.cargar(t.getDescripcion(), t.getPropietario(), t.getID(), t.isPendiente(),
+					t.getDependencias(), t.getPrioridad(), Long.parseLong(cambio[2])));
+		else{
+			int dependencia = Integer.parseInt(cambio[2]);
+			boolean contiene = t.getDependencias().contains(dependencia);
+			if(tipo.equals(Diario.DEPENDENCIA_NUEVA)){
+				if(contiene)
+					return false;
+				l.addDependencia(t, dependencia);
+			}
+			else{
+				if(!contiene)
+					return false;
+				l.eliminarDependencia(t, dependencia);
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Mtodo que aplica un cambio del diario sobre un grupo ya existente. Si el grupo ya no existe, el cambio no tiene
+	 * efecto, ya que se elimin despus.
+	 * @param cambio Tipo de cambio, seguido de sus datos.
+	 * @return true si el cambio ha modificado los datos, false si ya estaba aplicado.
+	 * @throws Exception Si el cambio est mal formado o no se puede aplicar sobre los datos actuales.
+	 */
+	private boolean aplicarCambioGrupo(String [] cambio) throws Exception{
+		String tipo = cambio[0];
+		Grupo_usuarios g = buscarGrupo(cambio[1]);
+		if(g == null)
+			return false;
+		if(tipo.equals(Diario.GRUPO_ELIMINADO)){
+			grupos.remove(g);
+			indiceGrupos.remove(cambio[1]);
+			pendientes.delGrupo(g);
+			return true;
+		}
+		if(tipo.equals(Diario.MIEMBRO_NUEVO)){
+			Usuario us = buscarUsuario(cambio[2]);
+			if(us != null && g.estaUsuario(us))
+				return false;
+			Acceso_ficheros.addMiembro(g, cambio[2], this);
+			return true;
+		}
+		if(tipo.equals(Diario.MIEMBRO_ELIMINADO)){
+			if(cambio[2].endsWith("<T>"))
+				return pendientes.delSolicitud(getUsuario(cambio[2].replace("<T>", "")), g);
+			if(cambio[2].endsWith("<I>"))
+				return pendientes.delInvitacion(getUsuario(cambio[2].replace("<I>", "")), g);
+			Usuario us = getUsuario(cambio[2]);
+			if(!g.estaUsuario(us))
+				return false;
+			g.delUsuario(us);
+			us.delGrupo(g);
+			return true;
+		}
+		Usuario us = getUsuario(cambio[2]);
+		if(tipo.equals(Diario.SOLICITUD_NUEVA))
+			return pendientes.addSolicitud(us, g);
+		if(tipo.equals(Diario.SOLICITUD_ELIMINADA))
+			return pendientes.delSolicitud(us, g);
+		if(tipo.equals(Diario.INVITACION_NUEVA))
+			return pendientes.addInvitacion(us, g);
+		return pendientes.delInvitacion(us, g);
 	}
 	
 	/**
@@ -126,6 +492,14 @@ public class Acceso_datos {
 		return users;
 	}
 	
+	/**
+	 * Mtodo que devuelve el registro de las invitaciones y solicitudes de admisin a grupos pendientes.
+	 * @return El registro de pendientes.
+	 */
+	public Registro_pendientes getPendientes(){
+		return pendientes;
+	}
+	
 	/**
 	 * Mtodo que devuelve la lista de todos los grupos.
 	 * @return Una lista con todos los grupos.
@@ -141,15 +515,10 @@ public class Acceso_datos {
 	 * @throws RuntimeException Si no existe el usuario especificado.
 	 */
 	public Usuario getUsuario(String usuario) throws Exception{
-		if(users.isEmpty() || users == null){
+		Usuario u = buscarUsuario(usuario);
+		if(u == null)
 			throw new RuntimeException("No existe el usuario especificado.");
-		}
-		for(Usuario u : users){
-			if(u.getNombre().equals(usuario)){
-				return u;
-			}
-		}
-		throw new RuntimeException("No existe el usuario especificado.");
+		return u;
 	}
 	
 	/**
@@ -159,82 +528,105 @@ public class Acceso_datos {
 	 * @throws RuntimeException Si no existe el grupo especificado.
 	 */
 	public Grupo_usuarios getGrupo(String grupo){
-		if(grupos.isEmpty() || grupos == null){
+		Grupo_usuarios g = buscarGrupo(grupo);
+		if(g == null)
 			throw new RuntimeException("No existe el grupo especificado.");
-		}
-		for(Grupo_usuarios g : grupos){
-			if(g.getNombre().equals(grupo))
-				return g;
-		}
-		throw new RuntimeException("No existe el grupo especificado.");
+		return g;
+	}
+	
+	/**
+	 * Mtodo que busca un {@link usuarios.Usuario Usuario} a partir de su nombre, sin recorrer la lista de usuarios.
+	 * @param usuario Nombre del usuario.
+	 * @return El usuario con ese nombre, o null si no existe.
+	 */
+	public Usuario buscarUsuario(String usuario){
+		return indiceUsuarios.get(usuario);
+	}
+	
+	/**
+	 * Mtodo que busca un {@link usuarios.Grupo_usuarios Grupo_usuarios} a partir de su nombre, sin recorrer la lista
+	 * de grupos.
+	 * @param grupo Nombre del grupo.
+	 * @return El grupo con ese nombre, o null si no existe.
+	 */
+	public Grupo_usuarios buscarGrupo(String grupo){
+		return indiceGrupos.get(grupo);
+	}
+	
+	/**
+	 * Mtodo que busca el {@link usuarios.Propietario Propietario} de una tarea a partir de su nombre.
+	 * Si un grupo y un usuario tienen el mismo nombre, se toma el grupo.
+	 * @param nombre Nombre del grupo o del usuario.
+	 * @return El propietario con ese nombre, o null si no existe.
+	 */
+	public Propietario buscarPropietario(String nombre){
+		Propietario p = indiceGrupos.get(nombre);
+		if(p == null)
+			p = indiceUsuarios.get(nombre);
+		return p;
 	}
 	
 	//MTODOS QUE SE UTILIZAN AL PRINCIPIO DEL PROGRAMA
 	
 	/**
 	 * Mtodo que comprueba si el usuario que ejecuta el programa ha sido invitado para unirse a algn grupo.
-	 * Las invitaciones a un grupo se indicarn si en la lista de usuarios del grupo, aparece su nombre seguido de la etiqueta
-	 * <b>&lt;I&gt;</b>.
+	 * Las invitaciones se consultan en el {@link usuarios.Registro_pendientes registro de pendientes}, as que slo se
+	 * recorren las del propio usuario.
 	 * El mtodo imprimir por pantalla cada una de las invitaciones por separado, y permitir al usuario aceptarlas o no.
 	 * En caso afirmativo, modifica la lista de grupos para que el usuario quede incluido en el grupo con todos los derechos
 	 * (crear y modificar tareas del grupo, invitar a usuarios al grupo y aceptar o rechazar solicitudes de admisin).
+	 * En cualquier caso, la invitacin queda respondida.
 	 */
 	public void compruebaInvitacion(){
-		Usuario aux = null;
-		LinkedList<Grupo_usuarios> grupos_restantes = new LinkedList<Grupo_usuarios>();
-		grupos_restantes.addAll(grupos);
-		grupos_restantes.removeAll(u.getGrupos());
-		for(Grupo_usuarios g : grupos_restantes){
+		for(Grupo_usuarios g : pendientes.getInvitaciones(u)){
 			boolean si = false;
-			for(Usuario us : g.getUsuarios()){
-				if(us.getNombre().equals(u.getNombre()+"<I>")){
-					System.out.println("Ha sido invitado para unirse al grupo "+g.getNombre()+".");
-					System.out.print("Desea aceptar la invitacin? (s/n) ");
-					if("s".equals(teclado.nextLine())){
-						si = true;
-						u.addGrupo(g);
-					}
-					aux = us;
+			if(!g.estaUsuario(u)){
+				System.out.println("Ha sido invitado para unirse al grupo "+g.getNombre()+".");
+				System.out.print("Desea aceptar la invitacin? (s/n) ");
+				si = "s".equals(teclado.nextLine());
+			}
+			synchronized(this){
+				if(si){
+					u.addGrupo(g);
+					g.addUsuario(u);
+					notificar(Diario.MIEMBRO_NUEVO, g.getNombre(), u.getNombre());
 				}
+				pendientes.delInvitacion(u, g);
+				notificar(Diario.INVITACION_ELIMINADA, g.getNombre(), u.getNombre());
 			}
-			if(si)
-				g.addUsuario(u);
-			if(aux != null)
-				g.delUsuario(aux);
 		}
 	}
 	
 	/**
 	 * Mtodo que comprueba si existen solicitudes de admisin a un grupo en el que est el usuario seleccionado.
-	 * Las solicitudes se indicarn cuando existe un usuario en el grupo cuyo nombre termina en <b>&lt;T&gt;</b>.
+	 * Las solicitudes se consultan en el {@link usuarios.Registro_pendientes registro de pendientes}, as que slo se
+	 * recorren las de los grupos del usuario.
 	 * Si existen solicitudes, le preguntar al usuario si desea aceptarlas. En caso afirmativo, modificar la
 	 * lista de grupos de tal forma que el usuario que haya hecho la solicitud quede incluido en el grupo.
-	 * En el caso contrario, eliminar cualquier referencia al usuario que haya hecho la solicitud dentro del grupo.
+	 * En cualquier caso, la solicitud queda respondida.
 	 * Por lo tanto, si se deniega la solicitud, el usuario que haya solicitado la admisin en el grupo no
 	 * pertenecer al mismo, pero podr solicitar su admisin cuantas veces quiera.
-	 * @throws Exception Si el usuario especificado no existe.
 	 */
-	public void compruebaSolicitud() throws Exception{
-		LinkedList<Usuario> eliminar;
-		LinkedList<Usuario> anadir;
-		for(Grupo_usuarios g : u.getGrupos()){
-			eliminar = new LinkedList<Usuario>();
-			anadir = new LinkedList<Usuario>();
-			for(Usuario us : g.getUsuarios()){
-				if(us.getNombre().endsWith("<T>")){
-					String nombre = us.getNombre().replace("<T>", "");
-					System.out.println("El usuario "+nombre+" ha solicitado unirse a su grupo "+g.getNombre()+".");
+	public void compruebaSolicitud(){
+		LinkedList<Grupo_usuarios> propios = new LinkedList<Grupo_usuarios>(u.getGrupos());
+		for(Grupo_usuarios g : propios){
+			for(Usuario us : pendientes.getSolicitantes(g)){
+				boolean si = false;
+				if(!g.estaUsuario(us)){
+					System.out.println("El usuario "+us.getNombre()+" ha solicitado unirse a su grupo "+g.getNombre()+".");
 					System.out.print("Desea aceptar la solicitud? (s/n) ");
-					if("s".equals(teclado.nextLine())){
-						Usuario usr = getUsuario(nombre);
-						anadir.add(usr);
-						usr.addGrupo(g);
+					si = "s".equals(teclado.nextLine());
+				}
+				synchronized(this){
+					if(si){
+						us.addGrupo(g);
+						g.addUsuario(us);
+						notificar(Diario.MIEMBRO_NUEVO, g.getNombre(), us.getNombre());
 					}
-					eliminar.add(us);
+					pendientes.delSolicitud(us, g);
+					notificar(Diario.SOLICITUD_ELIMINADA, g.getNombre(), us.getNombre());
 				}
 			}
-			g.getUsuarios().addAll(anadir);
-			g.getUsuarios().removeAll(eliminar);
 		}
 	}
 	
@@ -243,11 +635,11 @@ public class Acceso_datos {
 	 * @param linea Lnea a analizar.
 	 * @return Una lista de IDs de dependencias.
 	 */
-	public ArrayList<Integer> leerDependencias(String linea){
-		ArrayList<Integer> dependencias = new ArrayList<Integer>();
+	public Conjunto_IDs leerDependencias(String linea){
 		if(linea.equals("-"))
-			return dependencias;
+			return new Conjunto_IDs();
 		String [] depend = linea.split(",");
+		Conjunto_IDs dependencias = new Conjunto_IDs(depend.length);
 		for(String d : depend){
 			dependencias.add(Integer.parseInt(d));
 		}
@@ -264,10 +656,10 @@ public class Acceso_datos {
 	 * @return true si la tarea est duplicada, false si no lo est.
 	 */
 	public boolean isDuplicada(Tarea tarea){
-		for(Tarea t : l.getTareasUsuario(u)){
+		for(Tarea t : l.getTareasPropietario(tarea.getPropietario())){
 			if(tarea.getDescripcion().equals(t.getDescripcion()) && tarea.getTipo().equals(t.getTipo()) && tarea.getPropietario().equals(t.getPropietario())){
 				if(tarea instanceof Tarea_con_plazo && t instanceof Tarea_con_plazo){
-					if(((Tarea_con_plazo)tarea).getFecha().equals(((Tarea_con_plazo)t).getFecha()))
+					if(((Tarea_con_plazo)tarea).getPlazo() == ((Tarea_con_plazo)t).getPlazo())
 							return true;
 					else
 						return false;
@@ -312,14 +704,10 @@ public class Acceso_datos {
 	 * @param dependencias Lista de dependencias que se desean analizar.
 	 * @throws Exception Si alguna de las dependencias no es correcta.
 	 */
-	public void comprobarDependencias(ArrayList<Integer> dependencias) throws Exception{
-		for(Integer in: dependencias){
-			try{
-				l.buscarID(in);
-			}
-			catch(Exception e){
+	public void comprobarDependencias(Conjunto_IDs dependencias) throws Exception{
+		for(int i = 0; i < dependencias.size(); i++){
+			if(l.consultarID(dependencias.get(i)) == null)
 				throw new Exception("Error 3: Alguna de las dependencias indicadas es incorrecta.");
-			}
 		}
 	}
 	
@@ -329,11 +717,13 @@ public class Acceso_datos {
 	 * @param t Tarea que se desea aadir.
 	 * @throws Exception Si la tarea est duplicada.
 	 */
-	public void addTarea(Tarea t) throws Exception{
+	public synchronized void addTarea(Tarea t) throws Exception{
 		if(isDuplicada(t))
 			throw new Exception("Error 1: Tarea ya existente.");
-		else
+		else{
 			l.addTarea(t, u);
+			notificar(anotacionTarea(t));
+		}
 
 	}
 	
@@ -343,14 +733,16 @@ public class Acceso_datos {
 	 * @throws Exception Si la tarea no pertenece al Usuario {@link #u}. 
 	 * @throws Exception Si hay otras tareas que dependen de la tarea que se desea eliminar.
 	 */
-	public void delTarea(int ID) throws Exception{
+	public synchronized void delTarea(int ID) throws Exception{
 		Tarea t = l.buscarID(ID);
 		if(!t.perteneceA(u))
 			throw new Exception("Error 5: Operacin no permitida sobre esta tarea.");
 		else if(!l.getDependientes(ID).isEmpty())
 			throw new Exception("Error 4: Otras tareas dependen de esta tarea.");
-		else
+		else{
 			l.eliminarTarea(t);
+			notificar(Diario.TAREA_ELIMINADA, String.valueOf(ID));
+		}
 
 	}
 	
@@ -380,13 +772,14 @@ public class Acceso_datos {
 	 * @param t Tarea que se desea modificar.
 	 * @param variacion Variacin que se quiere aplicar a la prioridad.
 	 */
-	public void modPrioridad(Tarea t, int variacion){
+	public synchronized void modPrioridad(Tarea t, int variacion){
 		int nueva_prioridad = t.getPrioridad() + variacion;
 		if(nueva_prioridad < 1)
 			nueva_prioridad = 1;
 		else if(nueva_prioridad > 10)
 			nueva_prioridad = 10;
-		t.setPrioridad(nueva_prioridad);
+		l.modPrioridad(t, nueva_prioridad);
+		notificar(Diario.PRIORIDAD, String.valueOf(t.getID()), String.valueOf(nueva_prioridad));
 	}
 	
 	/**
@@ -394,9 +787,10 @@ public class Acceso_datos {
 	 * @param t Tarea que se desea modificar.
 	 * @throws Exception Si la tarea no puede cambiar de estado por cualquier motivo.
 	 */
-	public void modEstado(Tarea t) throws Exception{
+	public synchronized void modEstado(Tarea t) throws Exception{
 		if(l.puedeCambiarEstado(t)){
-			t.setPendiente(!t.isPendiente());
+			l.modEstado(t, !t.isPendiente());
+			notificar(Diario.ESTADO, String.valueOf(t.getID()), (t.isPendiente()) ? "pendiente" : "terminada");
 		}
 	}
 	
@@ -404,8 +798,9 @@ public class Acceso_datos {
 	 * Mtodo que permite modificar la fecha de plazo de la {@link tareas.Tarea Tarea}.
 	 * @param aux {@link tareas.Tarea_con_plazo Tarea_con_plazo} auxiliar.
 	 */
-	public void modFecha(Tarea_con_plazo aux){
+	public synchronized void modFecha(Tarea_con_plazo aux){
 		l.setCambios(aux);
+		notificar(Diario.PLAZO, String.valueOf(aux.getID()), String.valueOf(aux.getPlazo()));
 	}
 	
 	/**
@@ -415,8 +810,9 @@ public class Acceso_datos {
 	 * @throws Exception Si se intenta aadir a una tarea terminada, una tarea pendiente como dependencia.
 	 * @throws Exception Si la tarea dependencia no existe.
 	 * @throws Exception Si la tarea a modificar no existe.
+	 * @throws Exception Si la nueva dependencia creara una dependencia circular.
 	 */
-	public void addDependencia(Tarea t, int dependenciaID) throws Exception {
+	public synchronized void addDependencia(Tarea t, int dependenciaID) throws Exception {
 		
 		if(!t.isPendiente() && l.buscarID(dependenciaID).isPendiente()){
 			throw new Exception("Error 10: Una tarea terminada no puede tener tareas previas pendientes.");
@@ -426,7 +822,8 @@ public class Acceso_datos {
 		
 		@SuppressWarnings("unused")
 		Tarea dependencia = l.buscarID(dependenciaID); //Para revisar que exista
-		t.addDependencia(dependenciaID);
+		l.addDependencia(t, dependenciaID);
+		notificar(Diario.DEPENDENCIA_NUEVA, String.valueOf(t.getID()), String.valueOf(dependenciaID));
 	}
 	
 	/**
@@ -435,33 +832,13 @@ public class Acceso_datos {
 	 * @param dependenciaID ID de la dependencia que se desea eliminar.
 	 * @throws Exception Si la dependencia que se intenta eliminar no existe.
 	 */
-	public void eliminarDependencia(Tarea t, int dependenciaID) throws Exception {
-		t.eliminarDependencia(dependenciaID);		
+	public synchronized void eliminarDependencia(Tarea t, int dependenciaID) throws Exception {
+		l.eliminarDependencia(t, dependenciaID);
+		notificar(Diario.DEPENDENCIA_ELIMINADA, String.valueOf(t.getID()), String.valueOf(dependenciaID));
 	}
 	
 	//MTODOS DE IMPRESIN DE TAREAS SEGN LA OPERACIN ESCOGIDA
 	
-	/**
-	 * Mtodo que permite ordenar la lista segn un parmetro y un orden.
-	 * @param l Lista de las tareas que se desean ordenar.
-	 * @param parametro Parmetro segn el cual se desea ordenar.
-	 * @param orden Orden de la lista (ascendente o descendente).
-	 */
-	public void ordenar(LinkedList<Tarea> l, final String parametro, String orden){
-		final int signo = (orden.equals("ascendente")) ? 1 : -1;
-		Collections.sort(l,new Comparator<Tarea>(){
-			
-			public int compare(Tarea t1, Tarea t2) {
-				int retorno = signo*t1.compareTo(t2, parametro);
-				if(retorno == 0){
-					retorno = signo*t1.getDescripcion().compareTo(t2.getDescripcion());
-				}
-				return retorno;
-			}
-			
-		});
-	}
-	
 	/**
 	 * Mtodo que imprime una lista de tareas.
 	 * @param destino Destino de la impresin de la lista.
@@ -474,16 +851,11 @@ public class Acceso_datos {
 		
 		String titulo = "Listado de tareas "+estado+" ordenado por "+param+" en sentido "+orden;
 		
-		LinkedList<Tarea> lista = null;
-		if("totales".equals(estado)){
-			lista = l.getTareasUsuario(u);
-		}
-		else{
-			boolean pendiente = ("pendientes".equals(estado)) ? true : false;
-			lista = l.getTareasEstado(pendiente, u);
+		Boolean pendiente = null;
+		if(!"totales".equals(estado)){
+			pendiente = ("pendientes".equals(estado)) ? true : false;
 		}
-		
-		ordenar(lista, param, orden);
+		LinkedList<Tarea> lista = l.getTareasOrdenadas(u, pendiente, param, orden.equals("ascendente"));
 		
 		if("pantalla".equals(destino)){
 			System.out.println(titulo);
@@ -569,13 +941,9 @@ public class Acceso_datos {
 				System.out.println("Das restantes: "+((Tarea_con_plazo)t).getDias());
 		}
 		System.out.println("Depende directamente de: "+t.getDependencias());
-		ArrayList<Integer> aux = l.getDependenciasIndirectas(ID);
-		aux.removeAll(t.getDependencias());
-		System.out.println("Depende indirectamente de: "+aux);
+		System.out.println("Depende indirectamente de: "+l.getDependenciasIndirectas(ID));
 		System.out.println("Dependen directamente de ella: "+l.getDependientes(ID));
-		aux = l.getDependientesIndirectos(ID);
-		aux.removeAll(l.getDependientes(ID));
-		System.out.println("Dependen indirectamente de ella: "+aux);
+		System.out.println("Dependen indirectamente de ella: "+l.getDependientesIndirectos(ID));
 	}
 	
 	//MTODOS DE GESTIN DE GRUPOS Y USUARIOS
@@ -584,8 +952,9 @@ public class Acceso_datos {
 	 * Mtodo que permite modificar el email del usuario.
 	 * @param email La nueva direccin de email que desea tener el usuario.
 	 */
-	public void modEmail(String email){
+	public synchronized void modEmail(String email){
 		u.setEmail(email);
+		notificar(Diario.EMAIL, u.getNombre(), email);
 	}
 
 	/**
@@ -616,21 +985,32 @@ public class Acceso_datos {
 			System.out.print("\t Est seguro de su opcin? (s/n) ");
 			String op = teclado.nextLine();
 			if("s".equalsIgnoreCase(op)){
-				for(Tarea t : l.getTareasGrupo(g)){
-					 for(Integer d : l.getDependientes(t.getID())){
-						 Tarea aux = l.buscarID(d);
-						 aux.eliminarDependencia(t.getID());
-					 }
-					 l.eliminarTarea(t);
+				synchronized(this){
+					for(Tarea t : l.getTareasGrupo(g)){
+						 for(Integer d : l.getDependientes(t.getID())){
+							 Tarea aux = l.buscarID(d);
+							 l.eliminarDependencia(aux, t.getID());
+							 notificar(Diario.DEPENDENCIA_ELIMINADA, String.valueOf(d), String.valueOf(t.getID()));
+						 }
+						 l.eliminarTarea(t);
+						 notificar(Diario.TAREA_ELIMINADA, String.valueOf(t.getID()));
+					}
+					g.delUsuario(u);
+					u.delGrupo(g);
+					grupos.remove(g);
+					indiceGrupos.remove(g.getNombre());
+					pendientes.delGrupo(g);
+					notificar(Diario.MIEMBRO_ELIMINADO, g.getNombre(), u.getNombre());
+					notificar(Diario.GRUPO_ELIMINADO, g.getNombre());
 				}
-				g.delUsuario(u);
-				u.delGrupo(g);
-				grupos.remove(g);
 			}
 		}
 		else{
-			g.delUsuario(u);
-			u.delGrupo(g);
+			synchronized(this){
+				g.delUsuario(u);
+				u.delGrupo(g);
+				notificar(Diario.MIEMBRO_ELIMINADO, g.getNombre(), u.getNombre());
+			}
 		}
 	}
 	
@@ -642,20 +1022,11 @@ public class Acceso_datos {
 	 */
 	public void solicitarAcceso() throws Exception{
 		LinkedList<Grupo_usuarios> grupos_restantes = new LinkedList<Grupo_usuarios>();
-		grupos_restantes.addAll(grupos);
-		grupos_restantes.removeAll(u.getGrupos());
-		
-		LinkedList<Grupo_usuarios> gr_sol = new LinkedList<Grupo_usuarios>();
-		for(Grupo_usuarios aux : grupos_restantes){
-			for(Usuario usr : aux.getUsuarios()){
-				String nombre_s = u.getNombre()+"<T>";
-				if(nombre_s.equals(usr.getNombre()))
-					gr_sol.add(aux);
-			}
+		for(Grupo_usuarios aux : grupos){
+			if(!aux.estaUsuario(u) && !pendientes.haSolicitado(u, aux))
+				grupos_restantes.add(aux);
 		}
 		
-		grupos_restantes.removeAll(gr_sol);
-		
 		if(grupos_restantes.isEmpty()){
 			System.out.println("\t Ya pertenece a todos los grupos, o bien no queda ninguno para el que no haya hecho solicitud.");
 			return;
@@ -674,7 +1045,11 @@ public class Acceso_datos {
 			throw new Exception("Eleccin incorrecta.");
 		else if(prop == 0)
 			return;
-		grupos_restantes.get(prop-1).addSolicitud(u);
+		synchronized(this){
+			Grupo_usuarios g = grupos_restantes.get(prop-1);
+			pendientes.addSolicitud(u, g);
+			notificar(Diario.SOLICITUD_NUEVA, g.getNombre(), u.getNombre());
+		}
 	}
 
 	/**
@@ -703,20 +1078,11 @@ public class Acceso_datos {
 		Usuario other = new_users.get(prop-1);
 		LinkedList<Grupo_usuarios> grup_disp = new LinkedList<Grupo_usuarios>();
 		for(Grupo_usuarios aux : u.getGrupos()){
-			if(!aux.estaUsuario(other)){
+			if(!aux.estaUsuario(other) && !pendientes.estaInvitado(other, aux)){
 				grup_disp.add(aux);
 			}
 		}
 		
-		LinkedList<Grupo_usuarios> gr_inv = new LinkedList<Grupo_usuarios>();
-		for(Grupo_usuarios aux : grup_disp){
-			for(Usuario usr : aux.getUsuarios()){
-				if(usr.getNombre().equals(other.getNombre()+"<I>"))
-					gr_inv.add(aux);
-			}
-		}
-		grup_disp.removeAll(gr_inv);
-		
 		if(grup_disp.isEmpty()){
 			System.out.println("\t Ya pertenece a todos los grupos, o bien no queda ninguno para el que no haya sido invitado.");
 			return;
@@ -737,7 +1103,11 @@ public class Acceso_datos {
 			throw new Exception("Eleccin incorrecta.");
 		else if(prop == 0)
 			return;
-		grup_disp.get(prop-1).addInvitacion(other);
+		synchronized(this){
+			Grupo_usuarios g = grup_disp.get(prop-1);
+			pendientes.addInvitacion(other, g);
+			notificar(Diario.INVITACION_NUEVA, g.getNombre(), other.getNombre());
+		}
 	}
 	
 	/**
@@ -747,45 +1117,16 @@ public class Acceso_datos {
 	 * @param nombre_grupo Nombre del grupo que se desea crear.
 	 * @throws Exception Si el grupo que se desea crear ya existe.
 	 */
-	public void crearGrupo(String nombre_grupo) throws Exception{
-		for(Grupo_usuarios gr : grupos){
-			if(gr.getNombre().equals(nombre_grupo))
-				throw new Exception("El grupo especificado ya existe.");
-		}
+	public synchronized void crearGrupo(String nombre_grupo) throws Exception{
+		if(buscarGrupo(nombre_grupo) != null)
+			throw new Exception("El grupo especificado ya existe.");
 		Grupo_usuarios nuevo = new Grupo_usuarios(nombre_grupo);
 		nuevo.addUsuario(u);
 		u.addGrupo(nuevo);
 		grupos.add(nuevo);
+		indiceGrupos.put(nombre_grupo, nuevo);
+		notificar(Diario.GRUPO_NUEVO, nombre_grupo);
+		notificar(Diario.MIEMBRO_NUEVO, nombre_grupo, u.getNombre());
 		System.out.println("\t Grupo creado satisfactoriamente.");
 	}
-	
-	//MTODO EQUALS
-	
-	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (obj == null)
-			return false;
-		if (!(obj instanceof Acceso_datos))
-			return false;
-		Acceso_datos other = (Acceso_datos) obj;
-		if (grupos == null) {
-			if (other.grupos != null)
-				return false;
-		} else if (!grupos.equals(other.grupos))
-			return false;
-		if (l == null) {
-			if (other.l != null)
-				return false;
-		} else if (!l.equals(other.l))
-			return false;
-		if (users == null) {
-			if (other.users != null)
-				return false;
-		} else if (!users.equals(other.users))
-			return false;
-		return true;
-	}
-
 }
@@ -1,6 +1,5 @@
 package gestion;
 
-import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.Properties;
 
@@ -14,7 +13,8 @@ import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 import javax.mail.search.FlagTerm;
 
-import tareas.Generar_ID;
+import tareas.Conjunto_IDs;
+import tareas.Fuente_IDs;
 import tareas.Tarea;
 import tareas.Tarea_con_plazo;
 import tareas.Tarea_simple;
@@ -131,7 +131,7 @@ public abstract class Acceso_email {
 	 * @throws Exception Si hay algun fallo a la hora de recibir el email.
 	 * @throws Exception Si la direccin de correo no es de Gmail.
 	 */
-	public static void recibirTareas(String direccion, String password, Acceso_datos datos, Generar_ID generador) throws Exception{
+	public static void recibirTareas(String direccion, String password, Acceso_datos datos, Fuente_IDs generador) throws Exception{
 		
 		if(!direccion.endsWith("@gmail.com")){
 			throw new Exception("La direccin de correo elctronico debe ser de Gmail.");
@@ -164,23 +164,15 @@ public abstract class Acceso_email {
 				String descripcion = list.get(0)[1];
 				String tipo = list.get(1)[1];
 				String propietario = list.get(2)[1];
-				Propietario p = null;
-				try{
-					p = datos.getGrupo(propietario);
-				}
-				catch(RuntimeException e){
-					try{
-						p = datos.getUsuario(propietario);
-					}
-					catch(RuntimeException ex){
-						m.setFlags(new Flags(Flags.Flag.SEEN), false);
-						System.err.println(ex.getMessage());
-						return;
-					}
+				Propietario p = datos.buscarPropietario(propietario);
+				if(p == null){
+					m.setFlags(new Flags(Flags.Flag.SEEN), false);
+					System.err.println("No existe el usuario especificado.");
+					return;
 				}
 				int prioridad = Integer.parseInt(list.get(3)[1]);
 				boolean pendiente = ("pendiente".equals(list.get(4)[1])) ? true : false;
-				ArrayList<Integer> dependencias = datos.leerDependencias(list.get(5)[1]);
+				Conjunto_IDs dependencias = datos.leerDependencias(list.get(5)[1]);
 				if("con_plazo".equals(tipo)){
 					String fecha = list.get(6)[1];
 					Tarea_con_plazo aux = new Tarea_con_plazo(descripcion, p, generador.getID(), pendiente, dependencias, prioridad, fecha);
@@ -1,19 +1,33 @@
 package gestion;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
-import java.util.ArrayList;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
 
 import listas.Lista_tareas;
 
+import tareas.Conjunto_IDs;
+import tareas.Servicio_ID;
 import tareas.Tarea;
 import tareas.Tarea_con_plazo;
 import tareas.Tarea_simple;
 import usuarios.Grupo_usuarios;
 import usuarios.Propietario;
+import usuarios.Registro_pendientes;
 import usuarios.Usuario;
 
 /**
@@ -29,6 +43,40 @@ import usuarios.Usuario;
  */
 public class Acceso_ficheros {
 
+	/**
+	 * Codificacin de caracteres con la que se leen y escriben los ficheros de datos.
+	 */
+	static final Charset CODIFICACION = Charset.forName("ISO-8859-1");
+	
+	/**
+	 * Modo de carga en el que los ficheros se leen secuencialmente, lnea a lnea.
+	 */
+	public static final String SECUENCIAL = "secuencial";
+	
+	/**
+	 * Modo de carga en el que los ficheros se proyectan en memoria y se recorren directamente sobre el buffer.
+	 * @see Fichero_mapeado
+	 */
+	public static final String MAPEADO = "mapeado";
+	
+	/**
+	 * Modo de carga en el que los ficheros se proyectan en memoria y las tareas se leen en paralelo, dividiendo el
+	 * fichero por los separadores de registros.
+	 * @see Carga_paralela
+	 */
+	public static final String PARALELO = "paralelo";
+	
+	/**
+	 * Formato de fichero de texto, descrito en la especificacin del proyecto.
+	 */
+	public static final String TEXTO = "texto";
+	
+	/**
+	 * Formato de fichero binario compacto.
+	 * @see Formato_binario
+	 */
+	public static final String BINARIO = "binario";
+	
 	/**
 	 * Nombre del fichero a partir del cual se leer�n los usuarios.
 	 */
@@ -44,6 +92,52 @@ public class Acceso_ficheros {
 	 */
 	private String tareas;
 	
+	/**
+	 * Nombre del fichero en el que se reservan las IDs cuando varias sesiones trabajan a la vez.
+	 * Si es null, las IDs se generan a partir de la lista de tareas.
+	 */
+	private String ids;
+	
+	/**
+	 * Modo en el que se cargan los ficheros: {@link #SECUENCIAL}, {@link #MAPEADO} o {@link #PARALELO}.
+	 */
+	private String modo = SECUENCIAL;
+	
+	/**
+	 * Formato en el que se escriben los ficheros: {@link #TEXTO} o {@link #BINARIO}.
+	 * Si es null, cada fichero se escribe en el mismo formato en el que est.
+	 */
+	private String formato;
+	
+	/**
+	 * Nombre del fichero en el que se anotan los cambios segn se hacen. Si es null, no se usa diario y los cambios
+	 * slo se guardan al salir.
+	 * @see Diario
+	 */
+	private String diario;
+	
+	/**
+	 * Indica si el diario de cambios se escribe por tandas en un hilo aparte (<i>ver {@link Diario}</i>).
+	 */
+	private boolean diarioAsincrono = false;
+	
+	/**
+	 * Tamao del diario, en bytes, a partir del cual se hace un punto de control. Si es 0, no se tiene en cuenta.
+	 * @see Punto_control
+	 */
+	private long tamanoPuntoControl = Punto_control.TAMANO;
+	
+	/**
+	 * Tiempo, en milisegundos, tras el cual se hace un punto de control. Si es 0, no se tiene en cuenta.
+	 * @see Punto_control
+	 */
+	private long periodoPuntoControl = Punto_control.PERIODO;
+	
+	/**
+	 * Terminacin de los ficheros temporales en los que se escriben las copias de los datos.
+	 */
+	static final String TEMPORAL = ".tmp";
+	
 	/**
 	 * Constructor de un objeto Acceso_ficheros seg�n los nombres de los ficheros a los que acceder�.
 	 * @param usuarios Fichero de usuarios.
@@ -56,75 +150,209 @@ public class Acceso_ficheros {
 		this.tareas = tareas;
 	}
 	
+	/**
+	 * Mtodo que activa la reserva de IDs a travs de un fichero compartido, para que varias sesiones
+	 * puedan crear tareas a la vez sin repetir IDs.
+	 * @param ids Nombre del fichero de reserva de IDs.
+	 * @see tareas.Servicio_ID
+	 */
+	public void setFicheroIDs(String ids){
+		this.ids = ids;
+	}
+	
+	/**
+	 * Mtodo que activa el diario de cambios: cada cambio se anota en el fichero indicado en cuanto se hace y, al
+	 * leer los datos, se vuelven a aplicar los cambios anotados sobre los datos de los ficheros.
+	 * @param diario Nombre del fichero del diario.
+	 * @see Diario
+	 */
+	public void setFicheroDiario(String diario){
+		setFicheroDiario(diario, false);
+	}
+	
+	/**
+	 * Mtodo que activa el diario de cambios, indicando adems si se escribe de forma asncrona. En ese caso, los
+	 * cambios se guardan en segundo plano, agrupados por tandas, y quien los hace nunca espera a que se escriban.
+	 * @param diario Nombre del fichero del diario.
+	 * @param asincrono Si el diario se escribe por tandas en un hilo aparte.
+	 * @see Diario
+	 */
+	public void setFicheroDiario(String diario, boolean asincrono){
+		this.diario = diario;
+		this.diarioAsincrono = asincrono;
+	}
+	
+	/**
+	 * Mtodo que configura cada cunto se vuelcan los datos completos a los ficheros y se vaca el diario
+	 * (<i>ver {@link Punto_control}</i>). Slo tiene efecto si se usa un diario de cambios.
+	 * @param tamano Tamao del diario, en bytes, a partir del cual se hace un punto de control, o 0 para no tenerlo en
+	 * cuenta.
+	 * @param periodo Tiempo, en milisegundos, tras el cual se hace un punto de control, o 0 para no tenerlo en cuenta.
+	 */
+	public void setPuntoControl(long tamano, long periodo){
+		this.tamanoPuntoControl = tamano;
+		this.periodoPuntoControl = periodo;
+	}
+	
+	/**
+	 * Mtodo que cambia el modo en el que se cargan los ficheros.
+	 * @param modo {@link #SECUENCIAL} para leerlos lnea a lnea, {@link #MAPEADO} para proyectarlos en memoria, o
+	 * {@link #PARALELO} para proyectarlos en memoria y leer las tareas con varios hilos.
+	 * Con ficheros grandes, el modo proyectado evita copiar los datos y convertir en cadenas los campos numricos.
+	 * @throws IllegalArgumentException Si el modo no es ninguno de los anteriores.
+	 */
+	public void setModoCarga(String modo){
+		if(!modo.equals(SECUENCIAL) && !modo.equals(MAPEADO) && !modo.equals(PARALELO))
+			throw new IllegalArgumentException("Modo de carga desconocido: "+modo);
+		this.modo = modo;
+	}
+	
+	/**
+	 * Mtodo que cambia el formato en el que se escriben los ficheros. Al leerlos, el formato de cada fichero se
+	 * reconoce automticamente por su cabecera.
+	 * @param formato {@link #TEXTO} o {@link #BINARIO}, o null para mantener el formato que tenga cada fichero.
+	 * @throws IllegalArgumentException Si el formato no es ninguno de los anteriores.
+	 */
+	public void setFormato(String formato){
+		if(formato != null && !formato.equals(TEXTO) && !formato.equals(BINARIO))
+			throw new IllegalArgumentException("Formato de fichero desconocido: "+formato);
+		this.formato = formato;
+	}
+	
+	/**
+	 * Mtodo que indica si un fichero se debe escribir en formato binario.
+	 * @param fichero Nombre del fichero.
+	 * @return true si se ha elegido el formato binario, o si no se ha elegido ninguno y el fichero ya es binario.
+	 */
+	private boolean escribirBinario(String fichero){
+		if(formato != null)
+			return formato.equals(BINARIO);
+		return Formato_binario.esBinario(fichero);
+	}
+	
+	/**
+	 * Mtodo que abre un fichero de datos segn el modo de carga.
+	 * @param fichero Nombre del fichero.
+	 * @return El mecanismo con el que se lee el fichero.
+	 * @throws Exception Si no se encuentra el fichero especificado.
+	 */
+	private Fuente_lineas abrir(String fichero) throws Exception{
+		if(modo.equals(MAPEADO) || modo.equals(PARALELO))
+			return new Fichero_mapeado(fichero);
+		return new Lector_lineas(fichero);
+	}
+	
 	//M�TODOS DE LECTURA DE FICHEROS
 	
 	/**
 	 * M�todo que lee una lista de Tareas del archivo especificado por {@link tareas}.
 	 * El convenio mediante el cual se leen es el explicado en la especificaci�n del proyecto.
+	 * El fichero se lee lnea a lnea con la codificacin {@link #CODIFICACION}, segn el modo de carga
+	 * (<i>ver {@link #setModoCarga(String)}</i>), y cualquier error de formato se indica con su nmero de lnea.
 	 * @param datos Los datos que se usan en el programa.
 	 * @return La lista de tareas le�das del fichero.
-	 * @throws Exception Si no se encuentra el fichero especificado.
+	 * @throws Exception Si no se encuentra el fichero especificado, o si tiene algn error de formato.
 	 */
 	public LinkedList<Tarea> leerTareas(Acceso_datos datos) throws Exception{
-		LinkedList<Tarea> lista = new LinkedList<Tarea>();
-		File fich = new File(tareas);
-		Scanner entrada = new Scanner(fich);
-		String tipo, descripcion, propietario, fecha = "", estado;
-		int ID, prioridad;
-		ArrayList<Integer> dependencias;
-		boolean pendiente;
-		Propietario p;
-			
-		while(entrada.hasNext()){
-			tipo = entrada.nextLine();
-			tipo = tipo.equals("*") ? entrada.nextLine() : tipo;
-			ID = entrada.nextInt();
-			entrada.nextLine();
-			descripcion = entrada.nextLine();
-			propietario = entrada.nextLine();
-			p = null;
+		if(Formato_binario.esBinario(tareas))
+			return Formato_binario.leerTareas(tareas, datos);
+		Fuente_lineas entrada = abrir(tareas);
+		try{
+			if(!modo.equals(PARALELO))
+				return leerTareas(entrada, datos);
+			ForkJoinPool hilos = new ForkJoinPool();
 			try{
-				p = datos.getGrupo(propietario);
+				return hilos.invoke(new Carga_paralela((Fichero_mapeado) entrada, datos));
 			}
 			catch(RuntimeException e){
-				try{
-					p = datos.getUsuario(propietario);
-				}
-				catch(RuntimeException ex){
-					System.err.println(ex.getMessage());
-					System.exit(1);
-				}
+				Throwable causa = e;
+				while(causa.getCause() != null)
+					causa = causa.getCause();
+				if(causa instanceof Exception && !(causa instanceof RuntimeException))
+					throw (Exception) causa;
+				throw e;
 			}
-			prioridad = entrada.nextInt();
-			entrada.nextLine();
-			estado = entrada.nextLine();
-			pendiente = (estado.equals("pendiente")) ? true : false;
-			if(!entrada.hasNext("-")){
-				fecha = entrada.nextLine();
+			finally{
+				hilos.shutdown();
 			}
-			else{
-				entrada.nextLine();
+		}
+		finally{
+			entrada.cerrar();
+		}
+	}
+	
+	/**
+	 * Mtodo que lee las tareas de un fichero, o de una parte de l, desde el principio de un registro hasta el final.
+	 * No modifica ningn dato compartido, por lo que se puede usar a la vez desde varios hilos.
+	 * Los propietarios se buscan con {@link Acceso_datos#buscarPropietario(String)}.
+	 * @param entrada Fichero del que se leen las tareas.
+	 * @param datos Los datos que se usan en el programa.
+	 * @return La lista de tareas ledas, en el orden del fichero.
+	 * @throws Exception Si el fichero tiene algn error de formato.
+	 */
+	static LinkedList<Tarea> leerTareas(Fuente_lineas entrada, Acceso_datos datos) throws Exception{
+		LinkedList<Tarea> lista = new LinkedList<Tarea>();
+		String tipo, descripcion, propietario, fecha, estado;
+		int ID, prioridad;
+		Conjunto_IDs dependencias;
+		Propietario p;
+		
+		while((tipo = entrada.leer()) != null){
+			if(tipo.trim().equals("") || tipo.equals("*"))
+				continue;
+			ID = entrada.siguienteEntero("ID");
+			descripcion = entrada.siguiente("descripcin");
+			propietario = entrada.siguiente("propietario");
+			p = datos.buscarPropietario(propietario);
+			if(p == null)
+				throw entrada.error("no existe el propietario "+propietario);
+			prioridad = entrada.siguienteEntero("prioridad");
+			estado = entrada.siguiente("estado");
+			fecha = entrada.siguiente("fecha");
+			try{
+				dependencias = datos.leerDependencias(entrada.siguiente("dependencias").trim());
 			}
-			dependencias = datos.leerDependencias(entrada.nextLine());
-			if(tipo.equals("simple")){
-				Tarea_simple aux = new Tarea_simple(descripcion, p, ID, pendiente, dependencias, prioridad);
-				lista.add(aux);
+			catch(NumberFormatException e){
+				throw entrada.error("dependencias incorrectas");
 			}
-			else if(tipo.equals("con_plazo")){
-				try{
-					lista.add(new Tarea_con_plazo(descripcion, p, ID, pendiente, dependencias, prioridad, fecha));
-				}
-				catch(RuntimeException e){
-					Tarea_con_plazo aux = new Tarea_con_plazo(descripcion, p, ID, !pendiente, dependencias, prioridad, fecha);
-					aux.setPendiente(true);
-					lista.add(aux);
-				}
+			Tarea t;
+			try{
+				t = crearTarea(tipo, ID, descripcion, p, prioridad, estado.equals("pendiente"), fecha.trim(), dependencias);
 			}
+			catch(ParseException e){
+				throw entrada.error("fecha incorrecta: "+fecha);
+			}
+			if(t != null)
+				lista.add(t);
 		}
 		
 		return lista;
 	}
 	
+	/**
+	 * Mtodo que construye una tarea a partir de los campos ledos de un fichero.
+	 * Las tareas con plazo cuya fecha ya ha pasado se cargan igualmente, manteniendo su estado.
+	 * @param tipo Tipo de la tarea (<i>simple</i> o <i>con_plazo</i>).
+	 * @param ID Identificador de la tarea.
+	 * @param descripcion Descripcin de la tarea.
+	 * @param p Propietario de la tarea.
+	 * @param prioridad Prioridad de la tarea.
+	 * @param pendiente Si la tarea est o no pendiente.
+	 * @param fecha Fecha de plazo, o "-" si no tiene.
+	 * @param dependencias Lista de dependencias de la tarea.
+	 * @return La tarea construida, o null si el tipo no es conocido.
+	 * @throws Exception Si la fecha no tiene un formato correcto.
+	 */
+	static Tarea crearTarea(String tipo, int ID, String descripcion, Propietario p, int prioridad, boolean pendiente, String fecha, Conjunto_IDs dependencias) throws Exception{
+		if(tipo.equals("simple")){
+			return new Tarea_simple(descripcion, p, ID, pendiente, dependencias, prioridad);
+		}
+		else if(tipo.equals("con_plazo")){
+			return Tarea_con_plazo.cargar(descripcion, p, ID, pendiente, dependencias, prioridad, Tarea_con_plazo.leerFecha(fecha));
+		}
+		return null;
+	}
+	
 	/**
 	 * M�todo que lee los usuarios de un fichero de texto. Lee el nombre que los identifica, as� como sus respectivos emails
 	 * con los que podr�n enviar y recibir tareas. La sintaxis del archivo a partir del cual se leen se considera correcta.
@@ -138,68 +366,122 @@ public class Acceso_ficheros {
 	 * @throws Exception Si no se encuentra el fichero especificado.
 	 */
 	public LinkedList<Usuario> leerUsuarios() throws Exception{
+		if(Formato_binario.esBinario(this.usuarios))
+			return Formato_binario.leerUsuarios(this.usuarios);
 		LinkedList<Usuario> usuarios = new LinkedList<Usuario>();
-		File fich = new File(this.usuarios);
-		Scanner entrada = new Scanner(fich);
+		Fuente_lineas entrada = abrir(this.usuarios);
 		String cadena;
-		while(entrada.hasNext()){
-			cadena = entrada.nextLine();
-			String [] u = cadena.split(":\\s*");
-			Usuario aux = new Usuario(u[0]);
-			aux.setEmail(u[1]);
-			usuarios.add(aux);
+		try{
+			while((cadena = entrada.leer()) != null){
+				if(cadena.trim().equals(""))
+					continue;
+				String [] u = cadena.split(":\\s*");
+				if(u.length < 2)
+					throw entrada.error("falta el email del usuario");
+				Usuario aux = new Usuario(u[0]);
+				aux.setEmail(u[1]);
+				usuarios.add(aux);
+			}
+		}
+		finally{
+			entrada.cerrar();
 		}
 		return usuarios;
 	}
 	
 	/**
 	 * M�todo que lee los grupos a partir de un fichero de texto, con la sintaxis detallada en la especificaci�n del proyecto.
-	 * Si se encuentra un usuario cuyo nombre termine en las etiquetas &lt;T&gt; o &lt;I&gt;, los a�ade al grupo pero no
-	 * a�ade el grupo en cuesti�n a la lista de grupos del usuario, en espera de que se acepte la solicitud o la invitaci�n, respectivamente.
+	 * Tras los grupos, el fichero puede tener una seccin con las solicitudes y las invitaciones pendientes, una
+	 * lnea por grupo y tipo, que se guardan en el {@link usuarios.Registro_pendientes registro de pendientes}:
+	 * <blockquote>&lt;T&gt; nombre_grupo: usuario1, usuario2<br>
+	 * &lt;I&gt; nombre_grupo: usuario3</blockquote>
+	 * Si entre los usuarios de un grupo se encuentra uno cuyo nombre termine en las etiquetas &lt;T&gt; o &lt;I&gt;
+	 * (<i>como se guardaban antes las solicitudes y las invitaciones</i>), tambin se pasa al registro de pendientes.
 	 * @param datos Los datos que se usan en el programa.
 	 * @return Una lista de Grupos de usuario.
 	 * @throws Exception Si no existe el fichero especificado.
 	 */
 	public LinkedList<Grupo_usuarios> leerGrupos(Acceso_datos datos) throws Exception{
+		if(Formato_binario.esBinario(this.grupos))
+			return Formato_binario.leerGrupos(this.grupos, datos);
 		LinkedList<Grupo_usuarios> grupos = new LinkedList<Grupo_usuarios>();
-		File fich = new File(this.grupos);
-		Scanner entrada = new Scanner(fich);
+		HashMap<String, Grupo_usuarios> nombres = new HashMap<String, Grupo_usuarios>();
+		Fuente_lineas entrada = abrir(this.grupos);
 		String cadena;
-		while(entrada.hasNext()){
-			entrada.useDelimiter("\\s*:\\s*");
-			Grupo_usuarios aux = new Grupo_usuarios(entrada.next());
-			entrada.skip("\\s*:\\s*");
-			cadena = entrada.nextLine();
-			String [] usuarios = cadena.split("\\s*,\\s*");
-			for(String u : usuarios){
-				Usuario user;
-				if(u.endsWith("<T>")){
-					String nombre = u.replace("<T>", "");
-					user = (Usuario) datos.getUsuario(nombre).clone();
-					user.setNombre(user.getNombre()+"<T>");
-				}
-				else if(u.endsWith("<I>")){
-					String nombre = u.replace("<I>", "");
-					user = (Usuario) datos.getUsuario(nombre).clone();
-					user.setNombre(user.getNombre()+"<I>");
+		try{
+			while((cadena = entrada.leer()) != null){
+				if(cadena.trim().equals(""))
+					continue;
+				int separador = cadena.indexOf(':');
+				if(separador < 0)
+					throw entrada.error("falta el separador entre el nombre del grupo y sus usuarios");
+				String nombre = cadena.substring(0, separador).trim();
+				String [] usuarios = cadena.substring(separador + 1).trim().split("\\s*,\\s*");
+				if(nombre.startsWith("<T>") || nombre.startsWith("<I>")){
+					Grupo_usuarios g = nombres.get(nombre.substring(3).trim());
+					if(g == null)
+						throw entrada.error("no existe el grupo "+nombre.substring(3).trim());
+					for(String u : usuarios){
+						addMiembro(g, u+nombre.substring(0, 3), datos);
+					}
+					continue;
 				}
-				else{
-					user = datos.getUsuario(u);
-					user.addGrupo(aux);
+				Grupo_usuarios aux = new Grupo_usuarios(nombre);
+				for(String u : usuarios){
+					addMiembro(aux, u, datos);
 				}
-				aux.addUsuario(user);
+				grupos.add(aux);
+				nombres.put(nombre, aux);
 			}
-			grupos.add(aux);
+		}
+		finally{
+			entrada.cerrar();
 		}
 		return grupos;
 	}
 	
+	/**
+	 * Mtodo que aade un usuario ledo de un fichero a un grupo.
+	 * Si el nombre termina en las etiquetas &lt;T&gt; o &lt;I&gt;, no lo aade al grupo, sino que registra una solicitud
+	 * de admisin o una invitacin al grupo, respectivamente, en el registro de pendientes.
+	 * @param g Grupo al que se aade el usuario.
+	 * @param u Nombre del usuario, tal y como aparece en el fichero.
+	 * @param datos Los datos que se usan en el programa.
+	 * @throws Exception Si el usuario no existe.
+	 */
+	static void addMiembro(Grupo_usuarios g, String u, Acceso_datos datos) throws Exception{
+		if(u.endsWith("<T>"))
+			datos.getPendientes().addSolicitud(datos.getUsuario(u.replace("<T>", "")), g);
+		else if(u.endsWith("<I>"))
+			datos.getPendientes().addInvitacion(datos.getUsuario(u.replace("<I>", "")), g);
+		else{
+			Usuario user = datos.getUsuario(u);
+			user.addGrupo(g);
+			g.addUsuario(user);
+		}
+	}
+	
 	/**
 	 * M�todo que permite obtener un objeto Acceso_datos generado a partir de los datos le�dos de los ficheros.
+	 * Si se usa un diario de cambios, se abre antes de leer los ficheros, de modo que se termina cualquier punto de
+	 * control que quedara a medias; despus se aplican los cambios anotados en l y, a partir de ese momento, los
+	 * cambios que se hagan sobre los datos se anotan en el diario. Si algn cambio del diario no se puede aplicar, se
+	 * informa de l y el programa termina, para no seguir con datos incompletos.
 	 * @return Un objeto Acceso_datos con todos los datos que se usar�n en el programa.
 	 * @throws Exception Si hay alg�n error a la hora de leer los ficheros.
 	 */
 	public Acceso_datos getDatos() throws Exception{
+		Diario d = null;
+		if(diario != null){
+			try{
+				d = new Diario(diario, diarioAsincrono);
+			}
+			catch(Exception e){
+				System.err.println(e.getMessage());
+				System.exit(1);
+			}
+		}
+		
 		LinkedList<Usuario> users = leerUsuarios();
 		Acceso_datos datos = new Acceso_datos(users);
 		
@@ -221,6 +503,27 @@ public class Acceso_ficheros {
 			System.err.println(e.getMessage());
 		}
 		datos.setLista(l);
+		if(d != null && l == null)
+			d.cerrar();
+		if(d != null && l != null){
+			int n = 0;
+			for(String [] cambio : Diario.leer(diario)){
+				n++;
+				try{
+					datos.aplicar(cambio);
+				}
+				catch(Exception e){
+					String motivo = (e.getMessage() != null) ? e.getMessage() : e.toString();
+					System.err.println("Error 16: No se puede aplicar el cambio "+n+" del diario "+diario+": "+motivo);
+					System.exit(1);
+				}
+			}
+			datos.setDiario(d);
+			if(tamanoPuntoControl > 0 || periodoPuntoControl > 0)
+				datos.setPuntoControl(new Punto_control(this, datos, d, tamanoPuntoControl, periodoPuntoControl));
+		}
+		if(ids != null && l != null)
+			datos.setGenerador(new Servicio_ID(ids, l.getGenerador().getSiguienteSinUsar()));
 		
 		return datos;
 	}
@@ -237,9 +540,21 @@ public class Acceso_ficheros {
 		if(!fichero.canWrite()){
 			throw new Exception("Error 9: No se pudo almacenar la informaci�n en el fichero.");
 		}
-		PrintWriter salida = new PrintWriter (fichero);
-		
-		LinkedList<Tarea> lista = datos.getTareas();
+		escribirTareas(datos.getTareas(), new FileOutputStream(tareas));
+	}
+	
+	/**
+	 * Mtodo que escribe una lista de tareas en un flujo, en el formato que corresponde al fichero {@link #tareas}.
+	 * @param lista Las tareas que se escriben.
+	 * @param destino Flujo en el que se escribe. Se cierra al terminar.
+	 * @throws Exception Si hay algn tipo de error al escribir en el fichero.
+	 */
+	private void escribirTareas(LinkedList<Tarea> lista, OutputStream destino) throws Exception{
+		if(escribirBinario(tareas)){
+			Formato_binario.escribirTareas(destino, lista);
+			return;
+		}
+		PrintWriter salida = new PrintWriter(new OutputStreamWriter(destino, CODIFICACION));
 		
 		for(Iterator<Tarea> i = lista.iterator(); i.hasNext();){
 			salida.println(i.next().toStringTXT());
@@ -260,16 +575,54 @@ public class Acceso_ficheros {
 		if(!fichero.canWrite()){
 			throw new Exception("Error 9: No se pudo almacenar la informaci�n en el fichero.");
 		}
-		PrintWriter salida = new PrintWriter(fichero);
+		escribirGrupos(datos, new FileOutputStream(grupos));
+	}
+	
+	/**
+	 * Mtodo que escribe los grupos en un flujo, en el formato que corresponde al fichero {@link #grupos}.
+	 * @param datos Los datos que se usan en el programa.
+	 * @param destino Flujo en el que se escribe. Se cierra al terminar.
+	 * @throws Exception Si hay algn tipo de error al escribir en el fichero.
+	 */
+	private void escribirGrupos(Acceso_datos datos, OutputStream destino) throws Exception{
+		if(escribirBinario(grupos)){
+			Formato_binario.escribirGrupos(destino, datos.getGrupos(), datos.getPendientes());
+			return;
+		}
+		PrintWriter salida = new PrintWriter(new OutputStreamWriter(destino, CODIFICACION));
 		
 		LinkedList<Grupo_usuarios> lista_grupos = datos.getGrupos();
 		for(Grupo_usuarios g : lista_grupos){
 			salida.println(g.toStringTXT());
 		}
+		Registro_pendientes pendientes = datos.getPendientes();
+		for(Grupo_usuarios g : lista_grupos){
+			escribirPendientes(salida, "<T>", g, pendientes.getSolicitantes(g));
+			escribirPendientes(salida, "<I>", g, pendientes.getInvitados(g));
+		}
 		
 		salida.close();
 	}
 	
+	/**
+	 * Mtodo que escribe una lnea de la seccin de pendientes del fichero de grupos, si hay alguno.
+	 * @param salida Fichero en el que se escribe.
+	 * @param etiqueta Etiqueta del tipo de pendiente: &lt;T&gt; para las solicitudes y &lt;I&gt; para las invitaciones.
+	 * @param g Grupo al que se refieren.
+	 * @param usuarios Usuarios que las han hecho o recibido.
+	 */
+	private static void escribirPendientes(PrintWriter salida, String etiqueta, Grupo_usuarios g, LinkedList<Usuario> usuarios){
+		if(usuarios.isEmpty())
+			return;
+		StringBuilder linea = new StringBuilder(etiqueta+" "+g.getNombre()+": ");
+		for(Iterator<Usuario> i = usuarios.iterator(); i.hasNext();){
+			linea.append(i.next().getNombre());
+			if(i.hasNext())
+				linea.append(", ");
+		}
+		salida.println(linea.toString());
+	}
+	
 	/**
 	 * M�todo que escribe una lista de usuarios en el archivo especificado por {@link #usuarios}.
 	 * El convenio que se sigue est� detallado en la descripci�n de leerUsuarios().
@@ -282,7 +635,21 @@ public class Acceso_ficheros {
 		if(!fichero.canWrite()){
 			throw new Exception("Error 9: No se pudo almacenar la informaci�n en el fichero.");
 		}
-		PrintWriter salida = new PrintWriter(fichero);
+		escribirUsuarios(datos, new FileOutputStream(usuarios));
+	}
+	
+	/**
+	 * Mtodo que escribe los usuarios en un flujo, en el formato que corresponde al fichero {@link #usuarios}.
+	 * @param datos Los datos que se usan en el programa.
+	 * @param destino Flujo en el que se escribe. Se cierra al terminar.
+	 * @throws Exception Si hay algn tipo de error al escribir en el fichero.
+	 */
+	private void escribirUsuarios(Acceso_datos datos, OutputStream destino) throws Exception{
+		if(escribirBinario(usuarios)){
+			Formato_binario.escribirUsuarios(destino, datos.getUsers());
+			return;
+		}
+		PrintWriter salida = new PrintWriter(new OutputStreamWriter(destino, CODIFICACION));
 		
 		LinkedList<Usuario> users = datos.getUsers();
 		
@@ -293,17 +660,184 @@ public class Acceso_ficheros {
 		salida.close();
 	}
 	
+	/**
+	 * Mtodo que guarda en los ficheros los cambios hechos en los datos. Slo se escriben los ficheros cuyos datos han
+	 * cambiado desde que se leyeron o se guardaron por ltima vez.
+	 * @param datos Los datos que se usan en el programa.
+	 * @throws Exception Si no se puede almacenar la informacin en alguno de los ficheros.
+	 */
+	public void guardar(Acceso_datos datos) throws Exception{
+		synchronized(datos){
+			if(datos.hayCambios(Acceso_datos.TAREAS)){
+				long version = datos.getVersion(Acceso_datos.TAREAS);
+				escribirTareas(datos);
+				datos.setGuardado(Acceso_datos.TAREAS, version);
+			}
+			if(datos.hayCambios(Acceso_datos.GRUPOS)){
+				long version = datos.getVersion(Acceso_datos.GRUPOS);
+				escribirGrupos(datos);
+				datos.setGuardado(Acceso_datos.GRUPOS, version);
+			}
+			if(datos.hayCambios(Acceso_datos.USUARIOS)){
+				long version = datos.getVersion(Acceso_datos.USUARIOS);
+				escribirUsuarios(datos);
+				datos.setGuardado(Acceso_datos.USUARIOS, version);
+			}
+		}
+	}
+	
+	/**
+	 * Mtodo que hace una copia en memoria de los datos que han cambiado, para escribirla despus con
+	 * {@link #confirmarCopia(Acceso_datos, Copia_datos)}. Los datos de los ficheros que no han cambiado no se copian.
+	 * No escribe nada en disco ni da formato a las tareas, as que los datos slo tienen que estar bloqueados lo que
+	 * tarda en copiarse cada tarea.
+	 * @param datos Los datos que se usan en el programa. Deben estar bloqueados mientras se copian.
+	 * @return La copia de los datos.
+	 * @throws Exception Si hay algn tipo de error al copiar los datos.
+	 */
+	Copia_datos copiar(Acceso_datos datos) throws Exception{
+		Copia_datos copia = new Copia_datos();
+		if(datos.hayCambios(Acceso_datos.USUARIOS)){
+			copia.versiones[Acceso_datos.USUARIOS] = datos.getVersion(Acceso_datos.USUARIOS);
+			ByteArrayOutputStream contenido = new ByteArrayOutputStream();
+			escribirUsuarios(datos, contenido);
+			copia.usuarios = contenido.toByteArray();
+		}
+		if(datos.hayCambios(Acceso_datos.GRUPOS)){
+			copia.versiones[Acceso_datos.GRUPOS] = datos.getVersion(Acceso_datos.GRUPOS);
+			ByteArrayOutputStream contenido = new ByteArrayOutputStream();
+			escribirGrupos(datos, contenido);
+			copia.grupos = contenido.toByteArray();
+		}
+		if(datos.hayCambios(Acceso_datos.TAREAS)){
+			copia.versiones[Acceso_datos.TAREAS] = datos.getVersion(Acceso_datos.TAREAS);
+			copia.tareas = new LinkedList<Tarea>();
+			for(Tarea t : datos.getTareas())
+				copia.tareas.add(copiarTarea(t));
+		}
+		return copia;
+	}
+	
+	/**
+	 * Mtodo que crea una tarea nueva con los mismos datos que otra, incluida una copia de sus dependencias.
+	 * @param t Tarea que se copia.
+	 * @return La copia de la tarea.
+	 */
+	private static Tarea copiarTarea(Tarea t){
+		if(t instanceof Tarea_con_plazo)
+			return Tarea_con_plazo.cargar(t.getDescripcion(), t.getPropietario(), t.getID(), t.isPendiente(),
+					new Conjunto_IDs(t.getDependencias()), t.getPrioridad(), ((Tarea_con_plazo)t).getPlazo());
+		return new Tarea_simple(t.getDescripcion(), t.getPropietario(), t.getID(), t.isPendiente(),
+				new Conjunto_IDs(t.getDependencias()), t.getPrioridad());
+	}
+	
+	/**
+	 * Mtodo que escribe la copia hecha con {@link #copiar(Acceso_datos)} en ficheros temporales, junto a los ficheros
+	 * de datos, y fuerza su escritura en disco. Los ficheros de datos no cambian hasta que se llama a
+	 * {@link #confirmarCopia(Acceso_datos, Copia_datos)}. No necesita que los datos estn bloqueados.
+	 * @param copia La copia de los datos.
+	 * @return Los nombres de los ficheros de datos cuyo fichero temporal se ha escrito.
+	 * @throws Exception Si hay algn tipo de error al escribir los ficheros.
+	 */
+	String [] escribirCopia(Copia_datos copia) throws Exception{
+		if(copia.contiene(Acceso_datos.USUARIOS))
+			escribirBytes(usuarios+TEMPORAL, copia.usuarios);
+		if(copia.contiene(Acceso_datos.GRUPOS))
+			escribirBytes(grupos+TEMPORAL, copia.grupos);
+		if(copia.contiene(Acceso_datos.TAREAS))
+			escribirTareas(copia.tareas, new FileOutputStream(tareas+TEMPORAL));
+		String [] ficheros = getFicheros();
+		LinkedList<String> escritos = new LinkedList<String>();
+		for(int i = 0; i < ficheros.length; i++){
+			if(!copia.contiene(i))
+				continue;
+			FileChannel canal = FileChannel.open(Paths.get(ficheros[i]+TEMPORAL), StandardOpenOption.WRITE);
+			try{
+				canal.force(true);
+			}
+			finally{
+				canal.close();
+			}
+			escritos.add(ficheros[i]);
+		}
+		return escritos.toArray(new String [escritos.size()]);
+	}
+	
+	/**
+	 * Mtodo que sustituye cada fichero de datos copiado por el fichero temporal escrito con
+	 * {@link #escribirCopia(Copia_datos)}, renombrndolo. Como cada cambio de nombre es atmico, cada fichero de datos
+	 * contiene siempre una versin completa, y si el programa termina entre dos cambios de nombre, el diario termina
+	 * los que falten al abrirse (<i>ver {@link Diario}</i>).
+	 * @param datos Los datos que se usan en el programa.
+	 * @param copia La copia de los datos.
+	 * @throws Exception Si hay algn tipo de error al renombrar los ficheros.
+	 */
+	void confirmarCopia(Acceso_datos datos, Copia_datos copia) throws Exception{
+		String [] ficheros = getFicheros();
+		for(int i = 0; i < ficheros.length; i++){
+			if(!copia.contiene(i))
+				continue;
+			Files.move(Paths.get(ficheros[i]+TEMPORAL), Paths.get(ficheros[i]), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			datos.setGuardado(i, copia.versiones[i]);
+		}
+	}
+	
+	/**
+	 * Mtodo que devuelve los nombres de los ficheros de datos, en las posiciones {@link Acceso_datos#USUARIOS},
+	 * {@link Acceso_datos#GRUPOS} y {@link Acceso_datos#TAREAS}.
+	 * @return Los nombres de los ficheros.
+	 */
+	private String [] getFicheros(){
+		String [] ficheros = new String [3];
+		ficheros[Acceso_datos.USUARIOS] = usuarios;
+		ficheros[Acceso_datos.GRUPOS] = grupos;
+		ficheros[Acceso_datos.TAREAS] = tareas;
+		return ficheros;
+	}
+	
+	/**
+	 * Mtodo que escribe un contenido ya preparado en un fichero.
+	 * @param fichero Nombre del fichero.
+	 * @param contenido Bytes que se escriben.
+	 * @throws Exception Si hay algn tipo de error al escribir en el fichero.
+	 */
+	private static void escribirBytes(String fichero, byte [] contenido) throws Exception{
+		FileOutputStream salida = new FileOutputStream(fichero);
+		try{
+			salida.write(contenido);
+		}
+		finally{
+			salida.close();
+		}
+	}
+	
+	/**
+	 * Mtodo que convierte los ficheros de datos a otro formato: los lee en el formato en el que estn y los vuelve
+	 * a escribir en el formato indicado, que pasa a ser el formato de escritura.
+	 * @param formato {@link #TEXTO} o {@link #BINARIO}.
+	 * @throws Exception Si hay algn error al leer o escribir los ficheros.
+	 */
+	public void convertir(String formato) throws Exception{
+		setFormato(formato);
+		Acceso_datos datos = new Acceso_datos(leerUsuarios());
+		datos.setGrupos(leerGrupos(datos));
+		datos.setLista(new Lista_tareas(leerTareas(datos)));
+		escribirUsuarios(datos);
+		escribirGrupos(datos);
+		escribirTareas(datos);
+	}
+	
 	//M�TODO DE CAMBIOS
 	
 	/**
 	 * M�todo que permite saber si hay cambios entre los datos que se obtienen a partir de los ficheros, y
 	 * los datos que se han usado en la ejecuci�n del programa.
+	 * No vuelve a leer los ficheros: cada cambio de los datos queda contado en su versin
+	 * (<i>ver {@link Acceso_datos#hayCambios()}</i>).
 	 * @param datos Los datos con los que ha trabajado el programa.
 	 * @return true si hay cambios, false si no los hay.
-	 * @throws Exception Si alguno de los ficheros no existe.
 	 */
-	public boolean hayCambios(Acceso_datos datos) throws Exception{
-		Acceso_datos datos_originales = getDatos();
-		return !datos_originales.equals(datos);
+	public boolean hayCambios(Acceso_datos datos){
+		return datos.hayCambios();
 	}
 }
@@ -0,0 +1,74 @@
+package gestion;
+
+import java.util.LinkedList;
+import java.util.concurrent.RecursiveTask;
+
+import tareas.Tarea;
+
+/**
+ * Clase que lee en paralelo una parte de un fichero de tareas proyectado en memoria.
+ * Como los registros del fichero son independientes entre s, la parte se divide por la mitad, ajustando el corte
+ * al siguiente separador al que sigue un registro (<i>ver {@link Fichero_mapeado#siguienteRegistro(int)}</i>), y cada
+ * mitad se lee en una tarea distinta de un
+ * {@link java.util.concurrent.ForkJoinPool ForkJoinPool}. Las partes de menos de {@link #UMBRAL} bytes se leen
+ * directamente.<br>
+ * Los propietarios se buscan en los ndices de los datos, que no se modifican durante la lectura, de modo que las
+ * tareas no necesitan sincronizarse. Al unir los resultados se conserva el orden del fichero.
+ * @author Jaime Alonso Lorenzo
+ *
+ */
+class Carga_paralela extends RecursiveTask<LinkedList<Tarea>> {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Tamao, en bytes, a partir del cual una parte del fichero se divide.
+	 */
+	static final int UMBRAL = 1 << 18;
+
+	/**
+	 * Parte del fichero que se lee.
+	 */
+	private Fichero_mapeado parte;
+
+	/**
+	 * Datos que se usan en el programa.
+	 */
+	private Acceso_datos datos;
+
+	/**
+	 * Constructor de la lectura de una parte del fichero.
+	 * @param parte Parte del fichero que se lee. Debe empezar al principio de un registro.
+	 * @param datos Datos que se usan en el programa.
+	 */
+	Carga_paralela(Fichero_mapeado parte, Acceso_datos datos){
+		this.parte = parte;
+		this.datos = datos;
+	}
+
+	/**
+	 * Mtodo que lee la parte del fichero, dividindola si es demasiado grande.
+	 * @return La lista de tareas ledas, en el orden del fichero.
+	 * @throws IllegalStateException Si el fichero tiene algn error de formato. La causa es el error original.
+	 */
+	@Override
+	protected LinkedList<Tarea> compute(){
+		int desde = parte.getPosicion();
+		int hasta = parte.getFin();
+		int mitad = hasta - desde > UMBRAL ? parte.siguienteRegistro(desde + (hasta - desde)/2) : hasta;
+		if(mitad >= hasta){
+			try{
+				return Acceso_ficheros.leerTareas(parte, datos);
+			}
+			catch(Exception e){
+				throw new IllegalStateException(e.getMessage(), e);
+			}
+		}
+		Carga_paralela primera = new Carga_paralela(new Fichero_mapeado(parte, desde, mitad), datos);
+		Carga_paralela segunda = new Carga_paralela(new Fichero_mapeado(parte, mitad, hasta), datos);
+		primera.fork();
+		LinkedList<Tarea> retorno = segunda.compute();
+		retorno.addAll(0, primera.join());
+		return retorno;
+	}
+}
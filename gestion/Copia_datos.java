@@ -0,0 +1,47 @@
+package gestion;
+
+import java.util.LinkedList;
+
+import tareas.Tarea;
+
+/**
+ * Clase que guarda en memoria una copia de los datos que han cambiado, tomada en un punto de control
+ * (<i>ver {@link Punto_control}</i>) mientras los datos estn bloqueados, para escribirla en los ficheros despus de
+ * desbloquearlos.<br>
+ * Los usuarios y los grupos se copian ya escritos en el formato de su fichero, porque ocupan poco. Las tareas se copian
+ * como objetos nuevos, que nadie ms modifica, y se escriben al guardar la copia.
+ * @author Jaime Alonso Lorenzo
+ *
+ */
+class Copia_datos {
+
+	/**
+	 * Versin copiada de los datos de cada fichero (<i>ver {@link Acceso_datos#getVersion(int)}</i>), o -1 si el
+	 * fichero no se ha copiado.
+	 */
+	long [] versiones = {-1, -1, -1};
+
+	/**
+	 * Contenido del fichero de usuarios, o null si no se ha copiado.
+	 */
+	byte [] usuarios;
+
+	/**
+	 * Contenido del fichero de grupos, o null si no se ha copiado.
+	 */
+	byte [] grupos;
+
+	/**
+	 * Copia de las tareas, o null si no se han copiado.
+	 */
+	LinkedList<Tarea> tareas;
+
+	/**
+	 * Mtodo que indica si se ha copiado el contenido de un fichero.
+	 * @param fichero {@link Acceso_datos#USUARIOS}, {@link Acceso_datos#GRUPOS} o {@link Acceso_datos#TAREAS}.
+	 * @return true si el fichero se ha copiado y hay que escribirlo.
+	 */
+	boolean contiene(int fichero){
+		return versiones[fichero] >= 0;
+	}
+}
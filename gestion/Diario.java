@@ -0,0 +1,829 @@
+package gestion;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clase que implementa un diario de cambios en el que se anota, en el momento en que se hace, cada modificacin de los
+ * datos del programa. Al arrancar, los cambios del diario se aplican sobre los datos ledos de los ficheros, de modo
+ * que no se pierde nada aunque el programa termine sin guardar.<br>
+ * Cada cambio ocupa una lnea, con sus campos separados por tabuladores: primero el tipo de cambio
+ * (<i>ver las constantes de la clase</i>) y despus sus datos. Los tabuladores, saltos de lnea y barras invertidas
+ * de los campos se escriben como <b>\t</b>, <b>\n</b> y <b>\\</b>.<br>
+ * Cada lnea se pasa al sistema operativo en cuanto se anota, as que un fallo del programa no pierde ningn cambio.
+ * La escritura en disco se agrupa: se fuerza cada {@link #LOTE} cambios y, en cualquier caso, a los
+ * {@link #INTERVALO} milisegundos como mucho despus de anotarse.<br>
+ * En el modo asncrono, quien anota un cambio no espera a ningn fichero: el cambio se deja en una cola y un hilo
+ * aparte los escribe por tandas. Cada tanda rene los cambios de {@link #INTERVALO} milisegundos, de modo que ningn
+ * cambio tarda ms que eso, ms lo que dure la escritura, en llegar al disco. Dentro de una tanda, los cambios que
+ * slo fijan un valor (<i>prioridad, estado o plazo de una tarea, o email de un usuario</i>) sustituyen a los
+ * anteriores sobre lo mismo, y cada tanda se escribe de una vez y con una sola escritura forzada en disco. Al terminar
+ * el programa, aunque no se cierre el diario, se escriben los cambios que queden en la cola.<br>
+ * Mientras el diario est abierto, se mantiene bloqueado un fichero junto a l (<i>ver {@link #BLOQUEO}</i>), de modo
+ * que dos procesos no pueden usar a la vez el mismo diario.<br>
+ * Cada vez que se quitan del diario los cambios ya guardados en un {@link Punto_control punto de control}, el diario
+ * empieza con una lnea {@link #PUNTO_CONTROL} con el nmero del punto de control. Antes de sustituir los ficheros de
+ * datos, el punto de control deja junto al diario una marca (<i>ver {@link #MARCA}</i>) con ese nmero, la posicin
+ * del diario hasta la que llegan los datos guardados y los ficheros de datos que se sustituyen. Si el programa
+ * termina antes de borrarse la marca, al abrir de nuevo el diario se termina el punto de control: se sustituyen los
+ * ficheros de datos que falten y, si el diario an no tiene el nmero de la marca, se quitan de l los cambios
+ * guardados. As, los ficheros de datos y el diario nunca se aplican a medias.
+ * @author Jaime Alonso Lorenzo
+ *
+ */
+class Diario {
+
+	/**
+	 * Tarea nueva. Campos: tipo, ID, descripcin, propietario, prioridad, estado, plazo en milisegundos (<i>o -</i>),
+	 * dependencias.
+	 */
+	static final String TAREA_NUEVA = "T+";
+
+	/**
+	 * Tarea eliminada. Campos: ID.
+	 */
+	static final String TAREA_ELIMINADA = "T-";
+
+	/**
+	 * Cambio de estado. Campos: ID, estado.
+	 */
+	static final String ESTADO = "EST";
+
+	/**
+	 * Cambio de prioridad. Campos: ID, prioridad.
+	 */
+	static final String PRIORIDAD = "PRI";
+
+	/**
+	 * Cambio de plazo. Campos: ID, plazo en milisegundos.
+	 */
+	static final String PLAZO = "FEC";
+
+	/**
+	 * Dependencia nueva. Campos: ID de la tarea, ID de la dependencia.
+	 */
+	static final String DEPENDENCIA_NUEVA = "DEP+";
+
+	/**
+	 * Dependencia eliminada. Campos: ID de la tarea, ID de la dependencia.
+	 */
+	static final String DEPENDENCIA_ELIMINADA = "DEP-";
+
+	/**
+	 * Usuario nuevo. Campos: nombre, email.
+	 */
+	static final String USUARIO_NUEVO = "U+";
+
+	/**
+	 * Cambio de email. Campos: nombre del usuario, email.
+	 */
+	static final String EMAIL = "EMAIL";
+
+	/**
+	 * Grupo nuevo. Campos: nombre.
+	 */
+	static final String GRUPO_NUEVO = "G+";
+
+	/**
+	 * Grupo eliminado. Campos: nombre.
+	 */
+	static final String GRUPO_ELIMINADO = "G-";
+
+	/**
+	 * Usuario aadido a un grupo. Campos: grupo, nombre del usuario. En los diarios anteriores al registro de
+	 * pendientes, el nombre puede llevar la etiqueta &lt;T&gt; o &lt;I&gt; si es una solicitud o una invitacin.
+	 */
+	static final String MIEMBRO_NUEVO = "M+";
+
+	/**
+	 * Usuario quitado de un grupo. Campos: grupo, nombre del usuario.
+	 */
+	static final String MIEMBRO_ELIMINADO = "M-";
+
+	/**
+	 * Solicitud de admisin nueva. Campos: grupo, nombre del usuario que la hace.
+	 */
+	static final String SOLICITUD_NUEVA = "SOL+";
+
+	/**
+	 * Solicitud de admisin respondida. Campos: grupo, nombre del usuario que la hizo.
+	 */
+	static final String SOLICITUD_ELIMINADA = "SOL-";
+
+	/**
+	 * Invitacin nueva. Campos: grupo, nombre del usuario invitado.
+	 */
+	static final String INVITACION_NUEVA = "INV+";
+
+	/**
+	 * Invitacin respondida. Campos: grupo, nombre del usuario invitado.
+	 */
+	static final String INVITACION_ELIMINADA = "INV-";
+
+	/**
+	 * Primera lnea del diario tras un punto de control. Campos: nmero del punto de control. No es un cambio, as que
+	 * no se devuelve al {@link #leer(String) leer} el diario.
+	 */
+	static final String PUNTO_CONTROL = "PC";
+
+	/**
+	 * Nmero de cambios a partir del cual se fuerza la escritura en disco.
+	 */
+	static final int LOTE = 64;
+
+	/**
+	 * Tiempo mximo, en milisegundos, que un cambio puede pasar sin escribirse en disco.
+	 */
+	static final long INTERVALO = 200;
+
+	/**
+	 * Terminacin del nombre del fichero que se bloquea mientras el diario est abierto. No se bloquea el propio diario
+	 * porque se sustituye por otro fichero al quitarle los cambios ya guardados.
+	 */
+	static final String BLOQUEO = ".bloqueo";
+
+	/**
+	 * Terminacin del nombre de la marca de un punto de control a medias. Contiene una lnea con el nmero del punto
+	 * de control, otra con la posicin del diario hasta la que llegan los datos guardados y una por cada fichero de
+	 * datos que se sustituye por su fichero {@link Acceso_ficheros#TEMPORAL temporal}.
+	 */
+	static final String MARCA = ".punto";
+
+	/**
+	 * Codificacin del diario.
+	 */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Marca que indica al hilo de escritura que debe terminar.
+	 */
+	private static final String [] FIN = new String [0];
+
+	/**
+	 * Marca que indica al hilo de escritura que debe anotar en {@link #corte} la posicin del diario tras los cambios
+	 * anteriores a ella.
+	 */
+	private static final String [] CORTE = new String [0];
+
+	/**
+	 * Valor de {@link #corte} mientras el hilo de escritura no ha llegado a la marca {@link #CORTE}.
+	 */
+	private static final long SIN_CORTE = -1;
+
+	/**
+	 * Valor de {@link #corte} si no se ha podido obtener la posicin pedida.
+	 */
+	private static final long CORTE_FALLIDO = -2;
+
+	/**
+	 * Nombre del fichero del diario.
+	 */
+	private String fichero;
+
+	/**
+	 * Fichero del diario.
+	 */
+	private FileOutputStream archivo;
+
+	/**
+	 * Fichero que se mantiene bloqueado mientras el diario est abierto.
+	 */
+	private RandomAccessFile bloqueo;
+
+	/**
+	 * Bloqueo exclusivo del fichero {@link #bloqueo}.
+	 */
+	private FileLock cerrojo;
+
+	/**
+	 * Mecanismo de escritura en el fichero.
+	 */
+	private Writer salida;
+
+	/**
+	 * Nmero de cambios anotados que an no se han escrito en disco.
+	 */
+	private int pendientes = 0;
+
+	/**
+	 * Temporizador que escribe en disco los cambios pendientes. Slo se usa en el modo sncrono.
+	 */
+	private Timer reloj;
+
+	/**
+	 * Cola de cambios anotados que an no ha recogido el hilo de escritura. Si es null, el diario es sncrono.
+	 */
+	private LinkedBlockingQueue<String []> cola;
+
+	/**
+	 * Hilo que escribe por tandas los cambios de la {@link #cola}.
+	 */
+	private Thread escritor;
+
+	/**
+	 * Nmero de cambios que se han dejado en la cola.
+	 */
+	private AtomicLong enviados = new AtomicLong();
+
+	/**
+	 * Nmero de cambios de la cola que ya se han escrito (<i>o descartado por estar sustituidos</i>).
+	 */
+	private long escritos = 0;
+
+	/**
+	 * Tamao del diario en el momento en el que se pidi con {@link #marcarCorte()}.
+	 */
+	private long corte = SIN_CORTE;
+
+	/**
+	 * Nmero del ltimo punto de control que ha quitado cambios del diario, o 0 si no lo ha hecho ninguno.
+	 */
+	private long numero = 0;
+
+	/**
+	 * Tamao, en bytes, de la lnea {@link #PUNTO_CONTROL} del principio del diario, o 0 si no la tiene.
+	 */
+	private int cabecera = 0;
+
+	/**
+	 * Indica si el diario se ha cerrado.
+	 */
+	private volatile boolean cerrado = false;
+
+	/**
+	 * Constructor que abre un diario sncrono para aadir cambios al final.
+	 * @param fichero Nombre del fichero del diario. Se crea si no existe.
+	 * @throws Exception Si no se puede abrir el fichero.
+	 */
+	Diario(String fichero) throws Exception{
+		this(fichero, false);
+	}
+
+	/**
+	 * Constructor que abre un diario para aadir cambios al final. Si qued a medias un punto de control, lo termina
+	 * antes de abrirlo.
+	 * @param fichero Nombre del fichero del diario. Se crea si no existe.
+	 * @param asincrono Si los cambios se escriben por tandas en un hilo aparte, en lugar de en el momento de anotarlos.
+	 * @throws Exception Si no se puede abrir el fichero, si el diario lo est usando otro proceso o si no se puede
+	 * terminar el punto de control.
+	 */
+	Diario(String fichero, boolean asincrono) throws Exception{
+		this.fichero = fichero;
+		bloquear();
+		try{
+			leerCabecera();
+			recuperar();
+		}
+		catch(Exception e){
+			cerrojo.release();
+			bloqueo.close();
+			throw e;
+		}
+		abrir();
+		if(asincrono){
+			cola = new LinkedBlockingQueue<String []>();
+			escritor = new Thread("Diario"){
+				public void run(){
+					escribirTandas();
+				}
+			};
+			escritor.setDaemon(true);
+			escritor.start();
+			Runtime.getRuntime().addShutdownHook(new Thread("Cierre del diario"){
+				public void run(){
+					try{
+						cerrar();
+					}
+					catch(IOException e){
+						System.err.println("No se pudo escribir el diario en disco: "+e.getMessage());
+					}
+				}
+			});
+		}
+		else{
+			reloj = new Timer("Diario", true);
+			reloj.schedule(new TimerTask(){
+				public void run(){
+					try{
+						sincronizar();
+					}
+					catch(IOException e){
+						System.err.println("No se pudo escribir el diario en disco: "+e.getMessage());
+					}
+				}
+			}, INTERVALO, INTERVALO);
+		}
+	}
+
+	/**
+	 * Mtodo que bloquea el fichero {@link #BLOQUEO} del diario, que queda bloqueado hasta que se cierra el diario.
+	 * @throws Exception Si otro proceso ya tiene abierto el diario, o no se puede crear el fichero.
+	 */
+	private void bloquear() throws Exception{
+		bloqueo = new RandomAccessFile(fichero+BLOQUEO, "rw");
+		try{
+			cerrojo = bloqueo.getChannel().tryLock();
+		}
+		catch(OverlappingFileLockException e){
+			cerrojo = null;
+		}
+		if(cerrojo == null){
+			bloqueo.close();
+			throw new Exception("Error 14: El diario "+fichero+" lo est usando otra sesin.");
+		}
+	}
+
+	/**
+	 * Mtodo que lee la lnea {@link #PUNTO_CONTROL} del principio del diario, si la tiene.
+	 * @throws Exception Si no se puede leer el fichero, o si la lnea no es vlida.
+	 */
+	private void leerCabecera() throws Exception{
+		if(!new File(fichero).exists())
+			return;
+		byte [] principio = new byte [64];
+		int leidos;
+		FileInputStream entrada = new FileInputStream(fichero);
+		try{
+			leidos = Math.max(entrada.read(principio), 0);
+		}
+		finally{
+			entrada.close();
+		}
+		String texto = new String(principio, 0, leidos, UTF8);
+		int fin = texto.indexOf('\n');
+		if(fin < 0 || !texto.startsWith(PUNTO_CONTROL+"\t"))
+			return;
+		try{
+			numero = Long.parseLong(texto.substring(PUNTO_CONTROL.length() + 1, fin));
+		}
+		catch(NumberFormatException e){
+			throw new Exception("Error 15: La cabecera del diario "+fichero+" no es vlida.");
+		}
+		cabecera = fin + 1;
+	}
+
+	/**
+	 * Mtodo que termina un punto de control que qued a medias, si hay una marca {@link #MARCA} junto al diario:
+	 * sustituye los ficheros de datos cuyo fichero temporal an existe, quita del diario los cambios guardados si an
+	 * no tiene el nmero del punto de control, y borra la marca.
+	 * @throws Exception Si no se puede leer la marca, sustituir los ficheros o escribir el diario.
+	 */
+	private void recuperar() throws Exception{
+		Path marca = Paths.get(fichero+MARCA);
+		if(!Files.exists(marca))
+			return;
+		List<String> lineas = Files.readAllLines(marca, UTF8);
+		long nuevo, posicion;
+		try{
+			nuevo = Long.parseLong(lineas.get(0));
+			posicion = Long.parseLong(lineas.get(1));
+		}
+		catch(RuntimeException e){
+			throw new Exception("Error 15: La marca del punto de control "+marca+" no es vlida.");
+		}
+		for(String datos : lineas.subList(2, lineas.size())){
+			Path temporal = Paths.get(datos+Acceso_ficheros.TEMPORAL);
+			if(Files.exists(temporal))
+				Files.move(temporal, Paths.get(datos), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		if(numero != nuevo)
+			cortar(posicion, nuevo);
+		Files.delete(marca);
+	}
+
+	/**
+	 * Mtodo que abre el fichero del diario para aadir cambios al final.
+	 * @throws IOException Si no se puede abrir el fichero.
+	 */
+	private void abrir() throws IOException{
+		archivo = new FileOutputStream(fichero, true);
+		salida = new OutputStreamWriter(archivo, UTF8);
+	}
+
+	/**
+	 * Mtodo que anota un cambio al final del diario. En el modo asncrono, slo lo deja en la cola, sin esperar.
+	 * @param campos Tipo de cambio, seguido de sus datos.
+	 * @throws IOException Si el diario est cerrado o no se puede escribir en el fichero.
+	 */
+	void anotar(String... campos) throws IOException{
+		if(cerrado)
+			throw new IOException("El diario est cerrado.");
+		if(cola != null){
+			enviados.incrementAndGet();
+			cola.add(campos);
+		}
+		else
+			escribir(campos);
+	}
+
+	/**
+	 * Mtodo que escribe un cambio al final del fichero del diario.
+	 * @param campos Tipo de cambio, seguido de sus datos.
+	 * @throws IOException Si no se puede escribir en el fichero.
+	 */
+	private synchronized void escribir(String... campos) throws IOException{
+		if(salida == null)
+			throw new IOException("El diario est cerrado.");
+		salida.write(linea(campos));
+		salida.flush();
+		pendientes++;
+		if(pendientes >= LOTE)
+			sincronizar();
+	}
+
+	/**
+	 * Mtodo que ejecuta el hilo de escritura del modo asncrono: recoge los cambios de la cola por tandas de
+	 * {@link #INTERVALO} milisegundos y escribe cada tanda de una vez, hasta que encuentra la marca {@link #FIN}.
+	 */
+	private void escribirTandas(){
+		String [] cambio = null;
+		while(cambio != FIN){
+			try{
+				cambio = cola.take();
+				if(cambio != FIN && cambio != CORTE){
+					LinkedHashMap<String, String []> tanda = new LinkedHashMap<String, String []>();
+					int recibidos = 0;
+					long limite = System.currentTimeMillis() + INTERVALO;
+					do{
+						agrupar(tanda, cambio, recibidos);
+						recibidos++;
+						long restante = limite - System.currentTimeMillis();
+						cambio = (restante > 0) ? cola.poll(restante, TimeUnit.MILLISECONDS) : null;
+					}while(cambio != null && cambio != FIN && cambio != CORTE);
+					escribirTanda(tanda, recibidos);
+				}
+			}
+			catch(InterruptedException e){
+				return;
+			}
+			catch(IOException e){
+				System.err.println("No se pudo escribir el diario en disco: "+e.getMessage());
+			}
+			if(cambio == CORTE)
+				fijarCorte();
+		}
+	}
+
+	/**
+	 * Mtodo que aade un cambio a una tanda. Si el cambio slo fija un valor, sustituye al cambio anterior de la
+	 * tanda sobre lo mismo, y pasa a ocupar su lugar al final, para no adelantarse a los cambios que se anotaron
+	 * entre ambos.
+	 * @param tanda Cambios de la tanda, segn su clave.
+	 * @param cambio Cambio que se aade.
+	 * @param orden Posicin del cambio en la tanda, que sirve de clave si el cambio no sustituye a otros.
+	 */
+	private static void agrupar(LinkedHashMap<String, String []> tanda, String [] cambio, int orden){
+		String tipo = cambio[0];
+		String clave;
+		if(tipo.equals(PRIORIDAD) || tipo.equals(ESTADO) || tipo.equals(PLAZO) || tipo.equals(EMAIL))
+			clave = tipo+"\t"+cambio[1];
+		else
+			clave = String.valueOf(orden);
+		tanda.remove(clave);
+		tanda.put(clave, cambio);
+	}
+
+	/**
+	 * Mtodo que escribe una tanda de cambios al final del fichero y fuerza su escritura en disco.
+	 * @param tanda Cambios de la tanda.
+	 * @param recibidos Nmero de cambios recogidos de la cola para formar la tanda.
+	 * @throws IOException Si no se puede escribir en el fichero.
+	 */
+	private synchronized void escribirTanda(LinkedHashMap<String, String []> tanda, int recibidos) throws IOException{
+		try{
+			if(salida == null)
+				throw new IOException("El diario est cerrado.");
+			StringBuilder texto = new StringBuilder();
+			for(String [] campos : tanda.values())
+				texto.append(linea(campos));
+			salida.write(texto.toString());
+			salida.flush();
+			archivo.getFD().sync();
+		}
+		finally{
+			escritos += recibidos;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Mtodo que forma la lnea del diario de un cambio.
+	 * @param campos Tipo de cambio, seguido de sus datos.
+	 * @return La lnea, con los campos escapados y el salto de lnea final.
+	 */
+	private static String linea(String [] campos){
+		StringBuilder linea = new StringBuilder();
+		for(int i = 0; i < campos.length; i++){
+			if(i > 0)
+				linea.append('\t');
+			escapar(campos[i], linea);
+		}
+		linea.append('\n');
+		return linea.toString();
+	}
+
+	/**
+	 * Mtodo que fuerza la escritura en disco de los cambios anotados.
+	 * @throws IOException Si no se puede escribir en el fichero.
+	 */
+	synchronized void sincronizar() throws IOException{
+		if(pendientes == 0 || salida == null)
+			return;
+		salida.flush();
+		archivo.getFD().sync();
+		pendientes = 0;
+	}
+
+	/**
+	 * Mtodo que escribe en disco los cambios pendientes y cierra el diario. En el modo asncrono, antes espera a
+	 * que se escriban los cambios de la cola. Si el diario ya est cerrado, no hace nada.
+	 * @throws IOException Si no se puede escribir en el fichero.
+	 */
+	void cerrar() throws IOException{
+		synchronized(this){
+			if(cerrado)
+				return;
+			cerrado = true;
+		}
+		if(escritor != null){
+			cola.add(FIN);
+			try{
+				escritor.join();
+			}
+			catch(InterruptedException e){
+				throw new InterruptedIOException("No se termin de escribir el diario.");
+			}
+		}
+		synchronized(this){
+			if(reloj != null)
+				reloj.cancel();
+			sincronizar();
+			salida.close();
+			salida = null;
+			cerrojo.release();
+			bloqueo.close();
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Mtodo que devuelve el tamao de los cambios del diario, incluidos todos los anotados hasta ahora, sin contar la
+	 * lnea {@link #PUNTO_CONTROL}. En el modo asncrono, espera a que se escriban los cambios que haya en la cola.
+	 * @return El tamao de los cambios en bytes.
+	 * @throws IOException Si no se puede consultar el fichero.
+	 */
+	synchronized long getTamano() throws IOException{
+		while(salida != null && escritos < enviados.get()){
+			try{
+				wait();
+			}
+			catch(InterruptedException e){
+				throw new InterruptedIOException("No se termin de escribir el diario.");
+			}
+		}
+		if(salida == null)
+			return 0;
+		salida.flush();
+		return archivo.getChannel().size() - cabecera;
+	}
+
+	/**
+	 * Mtodo que pide la posicin del diario que separa los cambios anotados hasta ahora de los que se anoten despus,
+	 * sin esperar a ningn fichero. La posicin se recoge despus con {@link #getCorte()}. En el modo asncrono, slo
+	 * deja una marca en la cola, y la posicin se conoce cuando el hilo de escritura llega a ella.
+	 * @throws IOException Si no se puede consultar el fichero.
+	 */
+	void marcarCorte() throws IOException{
+		if(cola != null){
+			synchronized(this){
+				corte = SIN_CORTE;
+			}
+			cola.add(CORTE);
+		}
+		else
+			fijarCorte();
+	}
+
+	/**
+	 * Mtodo que anota en {@link #corte} el tamao actual del diario, con todo lo escrito hasta ahora.
+	 */
+	private synchronized void fijarCorte(){
+		try{
+			if(salida == null)
+				throw new IOException("El diario est cerrado.");
+			salida.flush();
+			corte = archivo.getChannel().size();
+		}
+		catch(IOException e){
+			corte = CORTE_FALLIDO;
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Mtodo que devuelve la posicin pedida con {@link #marcarCorte()}. En el modo asncrono, espera a que se
+	 * escriban los cambios que haba en la cola al pedirla.
+	 * @return El tamao, en bytes, que tena el diario con los cambios anotados hasta que se pidi la posicin.
+	 * @throws IOException Si no se ha podido obtener la posicin.
+	 */
+	synchronized long getCorte() throws IOException{
+		while(corte == SIN_CORTE && salida != null){
+			try{
+				wait();
+			}
+			catch(InterruptedException e){
+				throw new InterruptedIOException("No se termin de escribir el diario.");
+			}
+		}
+		if(corte < 0)
+			throw new IOException("No se pudo marcar la posicin del diario.");
+		return corte;
+	}
+
+	/**
+	 * Mtodo que deja junto al diario la marca {@link #MARCA} de un punto de control, antes de sustituir los ficheros
+	 * de datos. La marca se escribe en un fichero temporal que despus se renombra, de modo que nunca est a medias.
+	 * @param posicion Tamao, en bytes, de la parte del diario que contienen los ficheros de datos nuevos.
+	 * @param datos Nombres de los ficheros de datos cuyo fichero temporal est escrito en disco y los sustituye.
+	 * @throws IOException Si no se puede escribir la marca.
+	 */
+	synchronized void marcarPunto(long posicion, String [] datos) throws IOException{
+		StringBuilder texto = new StringBuilder();
+		texto.append(numero + 1).append('\n').append(posicion).append('\n');
+		for(String d : datos)
+			texto.append(d).append('\n');
+		FileOutputStream temporal = new FileOutputStream(fichero+MARCA+Acceso_ficheros.TEMPORAL);
+		try{
+			temporal.write(texto.toString().getBytes(UTF8));
+			temporal.getFD().sync();
+		}
+		finally{
+			temporal.close();
+		}
+		Files.move(Paths.get(fichero+MARCA+Acceso_ficheros.TEMPORAL), Paths.get(fichero+MARCA), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Mtodo que quita del principio del diario los cambios que ya estn guardados en los ficheros de datos, con el
+	 * nmero del punto de control que se marc con {@link #marcarPunto(long, String[])}, y despus borra la marca.
+	 * Mientras tanto no se pueden anotar cambios nuevos.
+	 * @param posicion Tamao, en bytes, de la parte del diario que ya est guardada.
+	 * @throws IOException Si hay algn error al escribir el diario.
+	 */
+	synchronized void descartarHasta(long posicion) throws IOException{
+		if(salida == null)
+			return;
+		salida.flush();
+		salida.close();
+		try{
+			cortar(posicion, numero + 1);
+		}
+		finally{
+			abrir();
+			pendientes = 0;
+		}
+		Files.deleteIfExists(Paths.get(fichero+MARCA));
+	}
+
+	/**
+	 * Mtodo que sustituye el diario por otro que empieza con la lnea {@link #PUNTO_CONTROL} de un punto de control
+	 * y sigue con los cambios del diario a partir de una posicin, que se copian de fichero a fichero sin cargarlos en
+	 * memoria. El diario nuevo se escribe en un fichero temporal, que despus sustituye al diario con un cambio de
+	 * nombre atmico, de modo que el diario siempre est completo.
+	 * El diario no debe estar abierto para escribir.
+	 * @param posicion Tamao, en bytes, de la parte del diario que se quita, incluida su lnea
+	 * {@link #PUNTO_CONTROL}.
+	 * @param nuevo Nmero del punto de control.
+	 * @throws IOException Si hay algn error al escribir el diario.
+	 */
+	private void cortar(long posicion, long nuevo) throws IOException{
+		Path diario = Paths.get(fichero);
+		byte [] linea = linea(new String [] {PUNTO_CONTROL, String.valueOf(nuevo)}).getBytes(UTF8);
+		FileOutputStream temporal = new FileOutputStream(fichero+Acceso_ficheros.TEMPORAL);
+		try{
+			temporal.write(linea);
+			if(Files.exists(diario)){
+				FileChannel origen = FileChannel.open(diario, StandardOpenOption.READ);
+				try{
+					long tamano = origen.size();
+					long inicio = Math.min(Math.max(posicion, cabecera), tamano);
+					FileChannel destino = temporal.getChannel();
+					while(inicio < tamano)
+						inicio += origen.transferTo(inicio, tamano - inicio, destino);
+				}
+				finally{
+					origen.close();
+				}
+			}
+			temporal.getFD().sync();
+		}
+		finally{
+			temporal.close();
+		}
+		Files.move(Paths.get(fichero+Acceso_ficheros.TEMPORAL), diario, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		numero = nuevo;
+		cabecera = linea.length;
+	}
+
+	/**
+	 * Mtodo que lee todos los cambios de un diario.
+	 * Si la ltima lnea est incompleta (<i>porque el programa termin mientras se escriba</i>), se descarta. La
+	 * lnea {@link #PUNTO_CONTROL} no se devuelve.
+	 * @param fichero Nombre del fichero del diario.
+	 * @return La lista de cambios, cada uno como un vector con su tipo y sus campos. Si el fichero no existe, la
+	 * lista est vaca.
+	 * @throws Exception Si hay algn error al leer el fichero.
+	 */
+	static ArrayList<String []> leer(String fichero) throws Exception{
+		ArrayList<String []> cambios = new ArrayList<String []>();
+		if(!new File(fichero).exists())
+			return cambios;
+		String contenido = new String(Files.readAllBytes(Paths.get(fichero)), UTF8);
+		int inicio = 0, fin;
+		while((fin = contenido.indexOf('\n', inicio)) >= 0){
+			if(fin > inicio){
+				String [] cambio = separar(contenido.substring(inicio, fin));
+				if(!cambio[0].equals(PUNTO_CONTROL))
+					cambios.add(cambio);
+			}
+			inicio = fin + 1;
+		}
+		return cambios;
+	}
+
+	/**
+	 * Mtodo que aade un campo a una lnea del diario, escapando los caracteres especiales.
+	 * @param campo Campo que se aade.
+	 * @param linea Lnea a la que se aade.
+	 */
+	private static void escapar(String campo, StringBuilder linea){
+		for(int i = 0; i < campo.length(); i++){
+			char c = campo.charAt(i);
+			if(c == '\\')
+				linea.append("\\\\");
+			else if(c == '\t')
+				linea.append("\\t");
+			else if(c == '\n')
+				linea.append("\\n");
+			else if(c == '\r')
+				linea.append("\\r");
+			else
+				linea.append(c);
+		}
+	}
+
+	/**
+	 * Mtodo que separa una lnea del diario en sus campos, deshaciendo el escapado.
+	 * @param linea Lnea del diario.
+	 * @return Los campos de la lnea.
+	 */
+	private static String [] separar(String linea){
+		ArrayList<String> campos = new ArrayList<String>();
+		StringBuilder campo = new StringBuilder();
+		for(int i = 0; i < linea.length(); i++){
+			char c = linea.charAt(i);
+			if(c == '\t'){
+				campos.add(campo.toString());
+				campo.setLength(0);
+			}
+			else if(c == '\\' && i + 1 < linea.length()){
+				char siguiente = linea.charAt(++i);
+				if(siguiente == 't')
+					campo.append('\t');
+				else if(siguiente == 'n')
+					campo.append('\n');
+				else if(siguiente == 'r')
+					campo.append('\r');
+				else
+					campo.append(siguiente);
+			}
+			else
+				campo.append(c);
+		}
+		campos.add(campo.toString());
+		return campos.toArray(new String [campos.size()]);
+	}
+}
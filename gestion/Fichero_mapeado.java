@@ -0,0 +1,309 @@
+package gestion;
+
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Clase auxiliar que proyecta un fichero de datos en memoria con {@link FileChannel#map FileChannel.map} y lo
+ * recorre directamente sobre el buffer, sin copiarlo.<br>
+ * Los lmites de las lneas y de los registros se buscan sobre los bytes del buffer, y los campos slo se convierten
+ * en cadenas cuando se leen. Los nmeros se leen directamente de los bytes. Como los ficheros estn en
+ * {@link Acceso_ficheros#CODIFICACION ISO-8859-1}, cada byte corresponde a un carcter.<br>
+ * Cada objeto tiene su propio cursor, de modo que varios objetos pueden recorrer a la vez partes distintas del
+ * mismo buffer (<i>ver {@link #Fichero_mapeado(Fichero_mapeado, int, int)}</i>).
+ * @author Jaime Alonso Lorenzo
+ *
+ */
+class Fichero_mapeado implements Fuente_lineas {
+
+	/**
+	 * Nombre del fichero proyectado.
+	 */
+	private String fichero;
+
+	/**
+	 * Buffer con el contenido del fichero.
+	 */
+	private ByteBuffer buffer;
+
+	/**
+	 * Posicin del cursor dentro del buffer.
+	 */
+	private int posicion;
+
+	/**
+	 * Posicin en la que termina la parte del buffer que recorre este objeto.
+	 */
+	private int fin;
+
+	/**
+	 * Vector auxiliar en el que se copian los caracteres de cada cadena antes de construirla.
+	 */
+	private char [] caracteres = new char[128];
+
+	/**
+	 * Constructor que proyecta un fichero completo en memoria.
+	 * @param fichero Nombre del fichero.
+	 * @throws Exception Si no se encuentra el fichero especificado.
+	 */
+	Fichero_mapeado(String fichero) throws Exception{
+		this.fichero = fichero;
+		RandomAccessFile archivo = new RandomAccessFile(fichero, "r");
+		try{
+			FileChannel canal = archivo.getChannel();
+			this.buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+		}
+		finally{
+			archivo.close();
+		}
+		this.posicion = 0;
+		this.fin = buffer.limit();
+	}
+
+	/**
+	 * Constructor que recorre slo una parte de un fichero ya proyectado, compartiendo su buffer.
+	 * @param base Fichero proyectado.
+	 * @param desde Posicin inicial de la parte que se recorre.
+	 * @param hasta Posicin final (<i>excluida</i>) de la parte que se recorre.
+	 */
+	Fichero_mapeado(Fichero_mapeado base, int desde, int hasta){
+		this.fichero = base.fichero;
+		this.buffer = base.buffer.duplicate();
+		this.posicion = desde;
+		this.fin = hasta;
+	}
+
+	/**
+	 * Mtodo que devuelve la posicin inicial de la parte que se recorre.
+	 * @return La posicin del cursor dentro del buffer.
+	 */
+	int getPosicion(){
+		return posicion;
+	}
+
+	/**
+	 * Mtodo que devuelve la posicin final de la parte que se recorre.
+	 * @return La posicin final (<i>excluida</i>) dentro del buffer.
+	 */
+	int getFin(){
+		return fin;
+	}
+
+	/**
+	 * Mtodo que busca el final de la lnea que empieza en la posicin indicada.
+	 * @param desde Posicin de inicio de la lnea.
+	 * @return La posicin del salto de lnea, o del final de la parte recorrida si no lo hay.
+	 */
+	private int finLinea(int desde){
+		int i = desde;
+		while(i < fin && buffer.get(i) != '\n')
+			i++;
+		return i;
+	}
+
+	/**
+	 * Mtodo que calcula dnde termina el contenido de una lnea, sin contar el retorno de carro.
+	 * @param desde Posicin de inicio de la lnea.
+	 * @param hasta Posicin del salto de lnea.
+	 * @return La posicin final (<i>excluida</i>) del contenido de la lnea.
+	 */
+	private int finContenido(int desde, int hasta){
+		if(hasta > desde && buffer.get(hasta-1) == '\r')
+			return hasta-1;
+		return hasta;
+	}
+
+	/**
+	 * Mtodo que indica si la lnea que empieza en la posicin indicada es un separador de registros (<b>*</b>).
+	 * @param desde Posicin de inicio de la lnea.
+	 * @return true si la lnea es un separador.
+	 */
+	private boolean esSeparador(int desde){
+		int hasta = finContenido(desde, finLinea(desde));
+		return hasta - desde == 1 && buffer.get(desde) == '*';
+	}
+
+	/**
+	 * Mtodo que indica si la lnea que empieza en la posicin indicada contiene exactamente un texto.
+	 * @param desde Posicin de inicio de la lnea.
+	 * @param texto Texto con el que se compara.
+	 * @return true si la lnea es igual al texto.
+	 */
+	private boolean esLinea(int desde, String texto){
+		int hasta = finContenido(desde, finLinea(desde));
+		if(hasta - desde != texto.length())
+			return false;
+		for(int i = 0; i < texto.length(); i++){
+			if(buffer.get(desde + i) != texto.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Mtodo que indica si la lnea que empieza en la posicin indicada es un nmero entero, con el mismo formato que
+	 * acepta {@link #siguienteEntero(String)} salvo el lmite de tamao.
+	 * @param desde Posicin de inicio de la lnea.
+	 * @return true si la lnea es un nmero.
+	 */
+	private boolean esNumero(int desde){
+		int hasta = finContenido(desde, finLinea(desde));
+		int i = desde;
+		while(i < hasta && buffer.get(i) == ' ')
+			i++;
+		while(hasta > i && buffer.get(hasta-1) == ' ')
+			hasta--;
+		if(i < hasta && buffer.get(i) == '-')
+			i++;
+		if(i == hasta)
+			return false;
+		for(; i < hasta; i++){
+			byte b = buffer.get(i);
+			if(b < '0' || b > '9')
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Mtodo que indica si en la posicin indicada empieza un registro de tarea: una lnea con el tipo
+	 * (<i>simple</i> o <i>con_plazo</i>), otra con el ID, y, tras la descripcin y el propietario, otra con la
+	 * prioridad y otra con el estado. Las descripciones son texto libre y pueden ser un asterisco, as que no basta
+	 * con encontrar un separador para saber que empieza un registro.
+	 * @param desde Posicin de inicio de la lnea.
+	 * @return true si las lneas siguientes tienen la forma de un registro.
+	 */
+	private boolean esRegistro(int desde){
+		int [] lineas = new int [6];
+		int i = desde;
+		for(int n = 0; n < lineas.length; n++){
+			if(i >= fin)
+				return false;
+			lineas[n] = i;
+			i = finLinea(i) + 1;
+		}
+		return (esLinea(lineas[0], "simple") || esLinea(lineas[0], "con_plazo")) && esNumero(lineas[1])
+				&& esNumero(lineas[4]) && (esLinea(lineas[5], "pendiente") || esLinea(lineas[5], "terminada"));
+	}
+
+	/**
+	 * Mtodo que busca dnde empieza el primer registro a partir de una posicin cualquiera de la parte que se
+	 * recorre. Los registros se separan con lneas que slo contienen un asterisco, pero slo se acepta un separador si
+	 * le sigue un registro completo (<i>ver {@link #esRegistro(int)}</i>), ya que una descripcin tambin puede ser un
+	 * asterisco.
+	 * @param desde Posicin desde la que se busca. Si no es el principio de una lnea, se empieza por la siguiente.
+	 * @return La posicin de la lnea siguiente al primer separador encontrado, o el final de la parte recorrida.
+	 */
+	int siguienteRegistro(int desde){
+		int i = desde;
+		if(i > 0 && i < fin && buffer.get(i-1) != '\n')
+			i = Math.min(finLinea(i) + 1, fin);
+		while(i < fin){
+			int siguiente = Math.min(finLinea(i) + 1, fin);
+			if(esSeparador(i) && esRegistro(siguiente))
+				return siguiente;
+			i = siguiente;
+		}
+		return fin;
+	}
+
+	/**
+	 * Mtodo que lee la siguiente lnea como una cadena.
+	 * @return La lnea leda, o null si se ha llegado al final.
+	 */
+	public String leer(){
+		if(posicion >= fin)
+			return null;
+		int salto = finLinea(posicion);
+		int hasta = finContenido(posicion, salto);
+		int longitud = hasta - posicion;
+		if(longitud > caracteres.length)
+			caracteres = new char[Math.max(longitud, caracteres.length*2)];
+		for(int i = 0; i < longitud; i++){
+			caracteres[i] = (char)(buffer.get(posicion + i) & 0xff);
+		}
+		posicion = Math.min(salto + 1, fin);
+		return new String(caracteres, 0, longitud);
+	}
+
+	/**
+	 * Mtodo que lee la siguiente lnea, que debe existir.
+	 * @param campo Nombre del campo que se espera leer, para el mensaje de error.
+	 * @return La lnea leda.
+	 * @throws Exception Si se ha llegado al final.
+	 */
+	public String siguiente(String campo) throws Exception{
+		String retorno = leer();
+		if(retorno == null)
+			throw error("falta el campo "+campo);
+		return retorno;
+	}
+
+	/**
+	 * Mtodo que lee la siguiente lnea como un nmero entero, directamente de los bytes del buffer.
+	 * @param campo Nombre del campo que se espera leer, para el mensaje de error.
+	 * @return El nmero ledo.
+	 * @throws Exception Si se ha llegado al final o la lnea no es un nmero.
+	 */
+	public int siguienteEntero(String campo) throws Exception{
+		if(posicion >= fin)
+			throw error("falta el campo "+campo);
+		int salto = finLinea(posicion);
+		int hasta = finContenido(posicion, salto);
+		int i = posicion;
+		posicion = Math.min(salto + 1, fin);
+		while(i < hasta && buffer.get(i) == ' ')
+			i++;
+		while(hasta > i && buffer.get(hasta-1) == ' ')
+			hasta--;
+		boolean negativo = i < hasta && buffer.get(i) == '-';
+		if(negativo)
+			i++;
+		if(i == hasta)
+			throw error("el campo "+campo+" no es un nmero");
+		long limite = negativo ? Integer.MAX_VALUE + 1L : Integer.MAX_VALUE;
+		long valor = 0;
+		for(; i < hasta; i++){
+			byte b = buffer.get(i);
+			if(b < '0' || b > '9')
+				throw error("el campo "+campo+" no es un nmero");
+			valor = valor*10 + (b - '0');
+			if(valor > limite)
+				throw error("el campo "+campo+" no es un nmero");
+		}
+		return (int)(negativo ? -valor : valor);
+	}
+
+	/**
+	 * Mtodo que calcula el nmero de la ltima lnea leda.
+	 * Slo se usa al informar de errores, ya que tiene que contar los saltos de lnea desde el principio del fichero.
+	 * @return El nmero de lnea.
+	 */
+	public int getLinea(){
+		int linea = 0;
+		for(int i = 0; i < posicion; i++){
+			if(buffer.get(i) == '\n')
+				linea++;
+		}
+		if(posicion > 0 && buffer.get(posicion-1) != '\n')
+			linea++;
+		return linea;
+	}
+
+	/**
+	 * Mtodo que construye una excepcin que indica la posicin del error en el fichero.
+	 * @param mensaje Descripcin del error.
+	 * @return Una excepcin con el nombre del fichero, la lnea y la descripcin del error.
+	 */
+	public Exception error(String mensaje){
+		return new Exception("Error de formato en "+fichero+", lnea "+getLinea()+": "+mensaje+".");
+	}
+
+	/**
+	 * Mtodo que libera el fichero. La proyeccin en memoria se libera cuando deja de usarse el buffer.
+	 */
+	public void cerrar(){
+		buffer = null;
+	}
+}
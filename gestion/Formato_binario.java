@@ -0,0 +1,505 @@
+package gestion;
+
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+import tareas.Conjunto_IDs;
+import tareas.Tarea;
+import tareas.Tarea_con_plazo;
+import tareas.Tarea_simple;
+import usuarios.Grupo_usuarios;
+import usuarios.Propietario;
+import usuarios.Registro_pendientes;
+import usuarios.Usuario;
+
+/**
+ * Clase que lee y escribe los ficheros de datos en un formato binario compacto, como alternativa al formato de texto.
+ * Todos los ficheros empiezan por una cabecera de seis bytes: la marca <b>GTB</b> seguida de un byte 0, que no puede
+ * aparecer en un fichero de texto, una letra que indica el contenido ({@link #USUARIOS}, {@link #GRUPOS} o
+ * {@link #TAREAS}) y el nmero de {@link #VERSION versin} del formato. Hasta la versin 2 la cabecera no tena el
+ * byte 0; esos ficheros se siguen reconociendo porque su byte de versin tampoco puede aparecer en un texto.<br>
+ * Los nmeros enteros se guardan como <i>varint</i>: siete bits por byte, con el bit ms alto indicando si sigue otro
+ * byte. Las cadenas se guardan como su longitud en bytes seguida de su contenido en UTF-8. Tras la cabecera va el
+ * nmero de elementos y, a continuacin, cada uno de ellos:
+ * <ul>
+ * <li><b>Usuarios</b>: nombre y email.</li>
+ * <li><b>Grupos</b>: nombre, nmero de usuarios y el nombre de cada uno. Desde la versin 2, tras los grupos va
+ * una seccin con las solicitudes de admisin y otra con las invitaciones pendientes: cada una con su nmero de
+ * elementos y, por cada uno, el nombre del grupo y el del usuario. En la versin 1, las solicitudes y las
+ * invitaciones se guardaban entre los usuarios del grupo, con las etiquetas &lt;T&gt; o &lt;I&gt;.</li>
+ * <li><b>Tareas</b>: antes del nmero de tareas, una tabla con los nombres de todos los propietarios. Cada tarea
+ * guarda un byte de indicadores (<i>con plazo, pendiente</i>), su ID, su descripcin, la posicin de su propietario
+ * en la tabla, su prioridad, su fecha de plazo en milisegundos desde 1970 si la tiene, y su nmero de dependencias
+ * seguido de sus IDs.</li>
+ * </ul>
+ * @author Jaime Alonso Lorenzo
+ *
+ */
+class Formato_binario {
+
+	/**
+	 * Letra de la cabecera de los ficheros de usuarios.
+	 */
+	static final byte USUARIOS = 'U';
+
+	/**
+	 * Letra de la cabecera de los ficheros de grupos.
+	 */
+	static final byte GRUPOS = 'G';
+
+	/**
+	 * Letra de la cabecera de los ficheros de tareas.
+	 */
+	static final byte TAREAS = 'T';
+
+	/**
+	 * Versin del formato que se escribe. Se pueden leer las versiones menores o iguales que ella.
+	 */
+	static final int VERSION = 3;
+
+	/**
+	 * Indicador de las tareas con plazo.
+	 */
+	private static final int CON_PLAZO = 1;
+
+	/**
+	 * Indicador de las tareas pendientes.
+	 */
+	private static final int PENDIENTE = 2;
+
+	/**
+	 * Codificacin de las cadenas.
+	 */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Nombre del fichero que se lee.
+	 */
+	private String fichero;
+
+	/**
+	 * Contenido del fichero que se lee.
+	 */
+	private byte [] datos;
+
+	/**
+	 * Posicin de lectura dentro del contenido.
+	 */
+	private int posicion = 0;
+
+	/**
+	 * Versin del formato del fichero que se lee.
+	 */
+	private int version;
+
+	/**
+	 * Constructor que lee el contenido completo de un fichero y comprueba su cabecera.
+	 * @param fichero Nombre del fichero.
+	 * @param tipo Letra que debe tener la cabecera.
+	 * @throws Exception Si no se encuentra el fichero o su cabecera no es correcta.
+	 */
+	private Formato_binario(String fichero, byte tipo) throws Exception{
+		this.fichero = fichero;
+		this.datos = Files.readAllBytes(Paths.get(fichero));
+		int cabecera = longitudCabecera(datos, datos.length);
+		if(cabecera == 0 || datos[cabecera-2] != tipo)
+			throw error("no es un fichero del tipo esperado");
+		if(datos[cabecera-1] > VERSION)
+			throw error("versin "+datos[cabecera-1]+" del formato no soportada");
+		version = datos[cabecera-1];
+		posicion = cabecera;
+	}
+
+	/**
+	 * Mtodo que indica si un fichero est escrito en formato binario, segn su cabecera.
+	 * @param fichero Nombre del fichero.
+	 * @return true si el fichero existe y empieza por la marca del formato binario.
+	 */
+	static boolean esBinario(String fichero){
+		byte [] cabecera = new byte[6];
+		int leidos = 0;
+		try{
+			InputStream entrada = new FileInputStream(fichero);
+			try{
+				int n;
+				while(leidos < cabecera.length && (n = entrada.read(cabecera, leidos, cabecera.length - leidos)) > 0)
+					leidos += n;
+			}
+			finally{
+				entrada.close();
+			}
+		}
+		catch(IOException e){
+			return false;
+		}
+		return longitudCabecera(cabecera, leidos) > 0;
+	}
+
+	/**
+	 * Mtodo que comprueba si un vector de bytes empieza por la cabecera del formato binario.
+	 * Un fichero de texto nunca la tiene, aunque empiece por <b>GTB</b>, ya que no contiene ni el byte 0 de la cabecera
+	 * actual ni los bytes 1 y 2 con los que terminaba la de las versiones anteriores.
+	 * @param bytes Bytes ledos.
+	 * @param longitud Nmero de bytes vlidos.
+	 * @return La longitud de la cabecera, que acaba con la letra del contenido y la versin, o 0 si no la tiene.
+	 */
+	private static int longitudCabecera(byte [] bytes, int longitud){
+		if(longitud < 5 || bytes[0] != 'G' || bytes[1] != 'T' || bytes[2] != 'B')
+			return 0;
+		if(bytes[3] == 0)
+			return (longitud >= 6 && bytes[5] >= 3) ? 6 : 0;
+		return (bytes[4] == 1 || bytes[4] == 2) ? 5 : 0;
+	}
+
+	//MTODOS DE LECTURA
+
+	/**
+	 * Mtodo que lee los usuarios de un fichero binario.
+	 * @param fichero Nombre del fichero.
+	 * @return Una lista de Usuarios.
+	 * @throws Exception Si no se encuentra el fichero o tiene algn error de formato.
+	 */
+	static LinkedList<Usuario> leerUsuarios(String fichero) throws Exception{
+		Formato_binario entrada = new Formato_binario(fichero, USUARIOS);
+		LinkedList<Usuario> usuarios = new LinkedList<Usuario>();
+		try{
+			for(int i = entrada.leerEntero(); i > 0; i--){
+				Usuario u = new Usuario(entrada.leerCadena());
+				u.setEmail(entrada.leerCadena());
+				usuarios.add(u);
+			}
+		}
+		catch(IndexOutOfBoundsException e){
+			throw entrada.error("el fichero est incompleto");
+		}
+		return usuarios;
+	}
+
+	/**
+	 * Mtodo que lee los grupos de un fichero binario.
+	 * @param fichero Nombre del fichero.
+	 * @param datos Los datos que se usan en el programa.
+	 * @return Una lista de Grupos de usuario.
+	 * @throws Exception Si no se encuentra el fichero o tiene algn error de formato.
+	 */
+	static LinkedList<Grupo_usuarios> leerGrupos(String fichero, Acceso_datos datos) throws Exception{
+		Formato_binario entrada = new Formato_binario(fichero, GRUPOS);
+		LinkedList<Grupo_usuarios> grupos = new LinkedList<Grupo_usuarios>();
+		try{
+			for(int i = entrada.leerEntero(); i > 0; i--){
+				Grupo_usuarios g = new Grupo_usuarios(entrada.leerCadena());
+				for(int j = entrada.leerEntero(); j > 0; j--){
+					Acceso_ficheros.addMiembro(g, entrada.leerCadena(), datos);
+				}
+				grupos.add(g);
+			}
+			if(entrada.version >= 2){
+				HashMap<String, Grupo_usuarios> nombres = new HashMap<String, Grupo_usuarios>();
+				for(Grupo_usuarios g : grupos)
+					nombres.put(g.getNombre(), g);
+				String [] etiquetas = {"<T>", "<I>"};
+				for(String etiqueta : etiquetas){
+					for(int i = entrada.leerEntero(); i > 0; i--){
+						String nombre = entrada.leerCadena();
+						Grupo_usuarios g = nombres.get(nombre);
+						if(g == null)
+							throw entrada.error("no existe el grupo "+nombre);
+						Acceso_ficheros.addMiembro(g, entrada.leerCadena()+etiqueta, datos);
+					}
+				}
+			}
+		}
+		catch(IndexOutOfBoundsException e){
+			throw entrada.error("el fichero est incompleto");
+		}
+		return grupos;
+	}
+
+	/**
+	 * Mtodo que lee las tareas de un fichero binario.
+	 * @param fichero Nombre del fichero.
+	 * @param datos Los datos que se usan en el programa, en los que se buscan los propietarios.
+	 * @return La lista de tareas ledas, en el orden del fichero.
+	 * @throws Exception Si no se encuentra el fichero o tiene algn error de formato.
+	 */
+	static LinkedList<Tarea> leerTareas(String fichero, Acceso_datos datos) throws Exception{
+		Formato_binario entrada = new Formato_binario(fichero, TAREAS);
+		LinkedList<Tarea> lista = new LinkedList<Tarea>();
+		try{
+			Propietario [] tabla = new Propietario[entrada.leerEntero()];
+			for(int i = 0; i < tabla.length; i++){
+				String nombre = entrada.leerCadena();
+				tabla[i] = datos.buscarPropietario(nombre);
+				if(tabla[i] == null)
+					throw entrada.error("no existe el propietario "+nombre);
+			}
+			for(int i = entrada.leerEntero(); i > 0; i--){
+				int indicadores = entrada.leer();
+				int ID = entrada.leerEntero();
+				String descripcion = entrada.leerCadena();
+				int propietario = entrada.leerEntero();
+				if(propietario >= tabla.length)
+					throw entrada.error("propietario "+propietario+" fuera de la tabla");
+				int prioridad = entrada.leerEnteroConSigno();
+				long plazo = (indicadores & CON_PLAZO) != 0 ? entrada.leerLargo() : 0;
+				int numero = entrada.leerEntero();
+				Conjunto_IDs dependencias = new Conjunto_IDs(numero);
+				for(int j = numero; j > 0; j--){
+					dependencias.add(entrada.leerEntero());
+				}
+				boolean pendiente = (indicadores & PENDIENTE) != 0;
+				if((indicadores & CON_PLAZO) != 0)
+					lista.add(Tarea_con_plazo.cargar(descripcion, tabla[propietario], ID, pendiente, dependencias, prioridad, plazo));
+				else
+					lista.add(new Tarea_simple(descripcion, tabla[propietario], ID, pendiente, dependencias, prioridad));
+			}
+		}
+		catch(IndexOutOfBoundsException e){
+			throw entrada.error("el fichero est incompleto");
+		}
+		return lista;
+	}
+
+	/**
+	 * Mtodo que lee un byte.
+	 * @return El byte ledo, sin signo.
+	 */
+	private int leer(){
+		return datos[posicion++] & 0xff;
+	}
+
+	/**
+	 * Mtodo que lee un nmero entero no negativo codificado como varint.
+	 * @return El nmero ledo.
+	 * @throws Exception Si el nmero no cabe en un entero.
+	 */
+	private int leerEntero() throws Exception{
+		long valor = leerLargo();
+		if(valor < 0 || valor > Integer.MAX_VALUE)
+			throw error("nmero fuera de rango");
+		return (int) valor;
+	}
+
+	/**
+	 * Mtodo que lee un nmero entero que puede ser negativo, codificado en zigzag.
+	 * @return El nmero ledo.
+	 * @throws Exception Si el nmero ocupa ms de diez bytes.
+	 */
+	private int leerEnteroConSigno() throws Exception{
+		int valor = (int) leerLargo();
+		return (valor >>> 1) ^ -(valor & 1);
+	}
+
+	/**
+	 * Mtodo que lee un nmero largo no negativo codificado como varint.
+	 * @return El nmero ledo.
+	 * @throws Exception Si el nmero ocupa ms de diez bytes.
+	 */
+	private long leerLargo() throws Exception{
+		long valor = 0;
+		for(int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7){
+			int b = leer();
+			valor |= (long)(b & 0x7f) << desplazamiento;
+			if((b & 0x80) == 0)
+				return valor;
+		}
+		throw error("nmero demasiado largo");
+	}
+
+	/**
+	 * Mtodo que lee una cadena.
+	 * @return La cadena leda.
+	 * @throws Exception Si la longitud de la cadena no es correcta.
+	 */
+	private String leerCadena() throws Exception{
+		int longitud = leerEntero();
+		if(longitud > datos.length - posicion)
+			throw new IndexOutOfBoundsException();
+		String retorno = new String(datos, posicion, longitud, UTF8);
+		posicion += longitud;
+		return retorno;
+	}
+
+	/**
+	 * Mtodo que construye una excepcin que indica la posicin del error en el fichero.
+	 * @param mensaje Descripcin del error.
+	 * @return Una excepcin con el nombre del fichero, la posicin y la descripcin del error.
+	 */
+	private Exception error(String mensaje){
+		return new Exception("Error de formato en "+fichero+", byte "+posicion+": "+mensaje+".");
+	}
+
+	//MTODOS DE ESCRITURA
+
+	/**
+	 * Mtodo que escribe los usuarios en formato binario.
+	 * @param destino Flujo en el que se escriben. Se cierra al terminar.
+	 * @param usuarios Lista de usuarios.
+	 * @throws Exception Si hay algn error al escribir en el fichero.
+	 */
+	static void escribirUsuarios(OutputStream destino, LinkedList<Usuario> usuarios) throws Exception{
+		OutputStream salida = abrir(destino, USUARIOS);
+		try{
+			escribirEntero(salida, usuarios.size());
+			for(Usuario u : usuarios){
+				escribirCadena(salida, u.getNombre());
+				escribirCadena(salida, u.getEmail());
+			}
+		}
+		finally{
+			salida.close();
+		}
+	}
+
+	/**
+	 * Mtodo que escribe los grupos en formato binario.
+	 * @param destino Flujo en el que se escriben. Se cierra al terminar.
+	 * @param grupos Lista de grupos.
+	 * @param pendientes Registro de las solicitudes y las invitaciones pendientes.
+	 * @throws Exception Si hay algn error al escribir en el fichero.
+	 */
+	static void escribirGrupos(OutputStream destino, LinkedList<Grupo_usuarios> grupos, Registro_pendientes pendientes) throws Exception{
+		OutputStream salida = abrir(destino, GRUPOS);
+		try{
+			escribirEntero(salida, grupos.size());
+			for(Grupo_usuarios g : grupos){
+				escribirCadena(salida, g.getNombre());
+				escribirEntero(salida, g.getUsuarios().size());
+				for(Usuario u : g.getUsuarios()){
+					escribirCadena(salida, u.getNombre());
+				}
+			}
+			escribirPendientes(salida, grupos, pendientes, true);
+			escribirPendientes(salida, grupos, pendientes, false);
+		}
+		finally{
+			salida.close();
+		}
+	}
+
+	/**
+	 * Mtodo que escribe la seccin de solicitudes o la de invitaciones pendientes de un fichero de grupos.
+	 * @param salida Fichero en el que se escribe.
+	 * @param grupos Lista de grupos.
+	 * @param pendientes Registro de las solicitudes y las invitaciones pendientes.
+	 * @param solicitudes true para escribir las solicitudes, false para escribir las invitaciones.
+	 * @throws IOException Si hay algn error al escribir en el fichero.
+	 */
+	private static void escribirPendientes(OutputStream salida, LinkedList<Grupo_usuarios> grupos, Registro_pendientes pendientes, boolean solicitudes) throws IOException{
+		LinkedList<String> pares = new LinkedList<String>();
+		for(Grupo_usuarios g : grupos){
+			LinkedList<Usuario> usuarios = (solicitudes) ? pendientes.getSolicitantes(g) : pendientes.getInvitados(g);
+			for(Usuario u : usuarios){
+				pares.add(g.getNombre());
+				pares.add(u.getNombre());
+			}
+		}
+		escribirEntero(salida, pares.size()/2);
+		for(String cadena : pares)
+			escribirCadena(salida, cadena);
+	}
+
+	/**
+	 * Mtodo que escribe las tareas en formato binario.
+	 * @param destino Flujo en el que se escriben. Se cierra al terminar.
+	 * @param tareas Lista de tareas.
+	 * @throws Exception Si hay algn error al escribir en el fichero.
+	 */
+	static void escribirTareas(OutputStream destino, LinkedList<Tarea> tareas) throws Exception{
+		HashMap<String, Integer> posiciones = new HashMap<String, Integer>();
+		ArrayList<String> tabla = new ArrayList<String>();
+		for(Tarea t : tareas){
+			String nombre = t.getPropietario().getNombre();
+			if(!posiciones.containsKey(nombre)){
+				posiciones.put(nombre, tabla.size());
+				tabla.add(nombre);
+			}
+		}
+
+		OutputStream salida = abrir(destino, TAREAS);
+		try{
+			escribirEntero(salida, tabla.size());
+			for(String nombre : tabla){
+				escribirCadena(salida, nombre);
+			}
+			escribirEntero(salida, tareas.size());
+			for(Tarea t : tareas){
+				boolean conPlazo = t instanceof Tarea_con_plazo;
+				int indicadores = (conPlazo ? CON_PLAZO : 0) | (t.isPendiente() ? PENDIENTE : 0);
+				salida.write(indicadores);
+				escribirEntero(salida, t.getID());
+				escribirCadena(salida, t.getDescripcion());
+				escribirEntero(salida, posiciones.get(t.getPropietario().getNombre()));
+				escribirEntero(salida, (t.getPrioridad() << 1) ^ (t.getPrioridad() >> 31));
+				if(conPlazo)
+					escribirLargo(salida, ((Tarea_con_plazo)t).getPlazo());
+				Conjunto_IDs dependencias = t.getDependencias();
+				escribirEntero(salida, dependencias.size());
+				for(int j = 0; j < dependencias.size(); j++){
+					escribirEntero(salida, dependencias.get(j));
+				}
+			}
+		}
+		finally{
+			salida.close();
+		}
+	}
+
+	/**
+	 * Mtodo que prepara un flujo para escribir en l y escribe su cabecera.
+	 * @param destino Flujo en el que se escribe.
+	 * @param tipo Letra de la cabecera.
+	 * @return El flujo de salida, con un buffer.
+	 * @throws Exception Si no se puede escribir en el flujo.
+	 */
+	private static OutputStream abrir(OutputStream destino, byte tipo) throws Exception{
+		OutputStream salida = new BufferedOutputStream(destino, 1 << 16);
+		salida.write(new byte [] {'G', 'T', 'B', 0, tipo, VERSION});
+		return salida;
+	}
+
+	/**
+	 * Mtodo que escribe un nmero entero no negativo codificado como varint.
+	 * @param salida Flujo en el que se escribe.
+	 * @param valor Nmero que se escribe.
+	 * @throws IOException Si hay algn error al escribir.
+	 */
+	private static void escribirEntero(OutputStream salida, int valor) throws IOException{
+		escribirLargo(salida, valor & 0xffffffffL);
+	}
+
+	/**
+	 * Mtodo que escribe un nmero largo no negativo codificado como varint.
+	 * @param salida Flujo en el que se escribe.
+	 * @param valor Nmero que se escribe.
+	 * @throws IOException Si hay algn error al escribir.
+	 */
+	private static void escribirLargo(OutputStream salida, long valor) throws IOException{
+		while((valor & ~0x7fL) != 0){
+			salida.write((int)(valor & 0x7f) | 0x80);
+			valor >>>= 7;
+		}
+		salida.write((int) valor);
+	}
+
+	/**
+	 * Mtodo que escribe una cadena, precedida de su longitud en bytes.
+	 * @param salida Flujo en el que se escribe.
+	 * @param cadena Cadena que se escribe.
+	 * @throws IOException Si hay algn error al escribir.
+	 */
+	private static void escribirCadena(OutputStream salida, String cadena) throws IOException{
+		byte [] bytes = cadena.getBytes(UTF8);
+		escribirEntero(salida, bytes.length);
+		salida.write(bytes);
+	}
+}
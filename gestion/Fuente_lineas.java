@@ -0,0 +1,53 @@
+package gestion;
+
+/**
+ * Interfaz que define las operaciones con las que se leen, lnea a lnea, los ficheros de datos.
+ * Permite que el mismo cdigo de lectura sirva tanto para la lectura secuencial ({@link Lector_lineas}) como para la
+ * lectura de ficheros proyectados en memoria ({@link Fichero_mapeado}).
+ * @author Jaime Alonso Lorenzo
+ *
+ */
+interface Fuente_lineas {
+
+	/**
+	 * Mtodo que lee la siguiente lnea.
+	 * @return La lnea leda, o null si se ha llegado al final.
+	 * @throws Exception Si hay algn error de lectura.
+	 */
+	String leer() throws Exception;
+
+	/**
+	 * Mtodo que lee la siguiente lnea, que debe existir.
+	 * @param campo Nombre del campo que se espera leer, para el mensaje de error.
+	 * @return La lnea leda.
+	 * @throws Exception Si se ha llegado al final.
+	 */
+	String siguiente(String campo) throws Exception;
+
+	/**
+	 * Mtodo que lee la siguiente lnea como un nmero entero.
+	 * @param campo Nombre del campo que se espera leer, para el mensaje de error.
+	 * @return El nmero ledo.
+	 * @throws Exception Si se ha llegado al final o la lnea no es un nmero.
+	 */
+	int siguienteEntero(String campo) throws Exception;
+
+	/**
+	 * Mtodo que devuelve el nmero de la ltima lnea leda.
+	 * @return El nmero de lnea.
+	 */
+	int getLinea();
+
+	/**
+	 * Mtodo que construye una excepcin que indica la posicin del error en el fichero.
+	 * @param mensaje Descripcin del error.
+	 * @return Una excepcin con el nombre del fichero, la lnea y la descripcin del error.
+	 */
+	Exception error(String mensaje);
+
+	/**
+	 * Mtodo que libera el fichero.
+	 * @throws Exception Si hay algn error al cerrarlo.
+	 */
+	void cerrar() throws Exception;
+}
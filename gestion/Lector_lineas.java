@@ -0,0 +1,106 @@
+package gestion;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+
+/**
+ * Clase auxiliar que lee un fichero de texto lnea a lnea, llevando la cuenta del nmero de lnea para poder
+ * indicar dnde est cualquier error de formato.
+ * Los ficheros se leen siempre con la codificacin {@link Acceso_ficheros#CODIFICACION}.
+ * @author Jaime Alonso Lorenzo
+ *
+ */
+class Lector_lineas implements Fuente_lineas {
+
+	/**
+	 * Nombre del fichero que se lee.
+	 */
+	private String fichero;
+
+	/**
+	 * Mecanismo de lectura del fichero.
+	 */
+	private BufferedReader entrada;
+
+	/**
+	 * Nmero de la ltima lnea leda.
+	 */
+	private int linea = 0;
+
+	/**
+	 * Constructor del lector de lneas.
+	 * @param fichero Nombre del fichero que se desea leer.
+	 * @throws Exception Si no se encuentra el fichero especificado.
+	 */
+	Lector_lineas(String fichero) throws Exception{
+		this.fichero = fichero;
+		this.entrada = new BufferedReader(new InputStreamReader(new FileInputStream(fichero), Acceso_ficheros.CODIFICACION), 1 << 16);
+	}
+
+	/**
+	 * Mtodo que lee la siguiente lnea del fichero.
+	 * @return La lnea leda, o null si se ha llegado al final del fichero.
+	 * @throws Exception Si hay algn error de lectura.
+	 */
+	public String leer() throws Exception{
+		String retorno = entrada.readLine();
+		if(retorno != null)
+			linea++;
+		return retorno;
+	}
+
+	/**
+	 * Mtodo que lee la siguiente lnea del fichero, que debe existir.
+	 * @param campo Nombre del campo que se espera leer, para el mensaje de error.
+	 * @return La lnea leda.
+	 * @throws Exception Si se ha llegado al final del fichero.
+	 */
+	public String siguiente(String campo) throws Exception{
+		String retorno = leer();
+		if(retorno == null)
+			throw error("falta el campo "+campo);
+		return retorno;
+	}
+
+	/**
+	 * Mtodo que lee la siguiente lnea del fichero como un nmero entero.
+	 * @param campo Nombre del campo que se espera leer, para el mensaje de error.
+	 * @return El nmero ledo.
+	 * @throws Exception Si se ha llegado al final del fichero o la lnea no es un nmero.
+	 */
+	public int siguienteEntero(String campo) throws Exception{
+		String cadena = siguiente(campo).trim();
+		try{
+			return Integer.parseInt(cadena);
+		}
+		catch(NumberFormatException e){
+			throw error("el campo "+campo+" no es un nmero: "+cadena);
+		}
+	}
+
+	/**
+	 * Mtodo que devuelve el nmero de la ltima lnea leda.
+	 * @return El nmero de lnea.
+	 */
+	public int getLinea(){
+		return linea;
+	}
+
+	/**
+	 * Mtodo que construye una excepcin que indica la posicin del error en el fichero.
+	 * @param mensaje Descripcin del error.
+	 * @return Una excepcin con el nombre del fichero, la lnea y la descripcin del error.
+	 */
+	public Exception error(String mensaje){
+		return new Exception("Error de formato en "+fichero+", lnea "+linea+": "+mensaje+".");
+	}
+
+	/**
+	 * Mtodo que cierra el fichero.
+	 * @throws Exception Si hay algn error al cerrarlo.
+	 */
+	public void cerrar() throws Exception{
+		entrada.close();
+	}
+}
@@ -0,0 +1,134 @@
+package gestion;
+
+import java.io.File;
+import java.util.Scanner;
+
+/**
+ * Clase que mide cunto se tarda en leer un fichero de tareas con cada forma de lectura: la de
+ * {@link java.util.Scanner} que se usaba antes, {@link Lector_lineas} y {@link Fichero_mapeado}.
+ * Slo se leen los campos de cada tarea, sin buscar sus propietarios ni construir las tareas, para que la medida
+ * dependa nicamente de la lectura. Cada forma se repite varias veces y se muestra el mejor tiempo.
+ * @author Jaime Alonso Lorenzo
+ *
+ */
+public class Medir_lectura {
+
+	/**
+	 * Mtodo main de la medida.
+	 * @param args Opcionalmente, el nombre del fichero de tareas (<i>por defecto tareas.txt</i>) y el nmero de
+	 * repeticiones (<i>por defecto 5</i>).
+	 * @throws Exception Si hay algn fallo al leer el fichero.
+	 */
+	public static void main(String[] args) throws Exception{
+		String fichero = (args.length > 0) ? args[0] : "tareas.txt";
+		int repeticiones = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+		String [] nombres = {"Scanner", "Lector_lineas", "Fichero_mapeado"};
+		for(int forma = 0; forma < nombres.length; forma++){
+			long mejor = Long.MAX_VALUE, resumen = 0;
+			for(int i = 0; i < repeticiones; i++){
+				long inicio = System.nanoTime();
+				resumen = leer(forma, fichero);
+				mejor = Math.min(mejor, System.nanoTime() - inicio);
+			}
+			System.out.println(nombres[forma]+": "+mejor/1000000+" ms (resumen "+resumen+")");
+		}
+	}
+
+	/**
+	 * Mtodo que lee el fichero completo con una de las formas de lectura.
+	 * @param forma 0 para Scanner, 1 para Lector_lineas y 2 para Fichero_mapeado.
+	 * @param fichero Nombre del fichero de tareas.
+	 * @return Un resumen de lo ledo, igual para todas las formas si leen lo mismo.
+	 * @throws Exception Si hay algn fallo al leer el fichero.
+	 */
+	private static long leer(int forma, String fichero) throws Exception{
+		if(forma == 0)
+			return leerScanner(fichero);
+		Fuente_lineas entrada = (forma == 1) ? new Lector_lineas(fichero) : new Fichero_mapeado(fichero);
+		try{
+			return leer(entrada);
+		}
+		finally{
+			entrada.cerrar();
+		}
+	}
+
+	/**
+	 * Mtodo que lee los campos de las tareas como lo haca {@link Acceso_ficheros#leerTareas(Acceso_datos)} con un
+	 * Scanner, con la codificacin {@link Acceso_ficheros#CODIFICACION}.
+	 * @param fichero Nombre del fichero de tareas.
+	 * @return Un resumen de lo ledo.
+	 * @throws Exception Si no se encuentra el fichero.
+	 */
+	private static long leerScanner(String fichero) throws Exception{
+		Scanner entrada = new Scanner(new File(fichero), Acceso_ficheros.CODIFICACION);
+		long resumen = 0;
+		try{
+			while(entrada.hasNext()){
+				String tipo = entrada.nextLine();
+				tipo = tipo.equals("*") ? entrada.nextLine() : tipo;
+				int ID = entrada.nextInt();
+				entrada.nextLine();
+				String descripcion = entrada.nextLine();
+				String propietario = entrada.nextLine();
+				int prioridad = entrada.nextInt();
+				entrada.nextLine();
+				String estado = entrada.nextLine();
+				String fecha = "-";
+				if(!entrada.hasNext("-"))
+					fecha = entrada.nextLine();
+				else
+					entrada.nextLine();
+				String dependencias = entrada.nextLine();
+				resumen += resumir(tipo, ID, descripcion, propietario, prioridad, estado, fecha, dependencias);
+			}
+		}
+		finally{
+			entrada.close();
+		}
+		return resumen;
+	}
+
+	/**
+	 * Mtodo que lee los campos de las tareas como lo hace {@link Acceso_ficheros#leerTareas(Acceso_datos)}.
+	 * @param entrada Fichero del que se leen las tareas.
+	 * @return Un resumen de lo ledo.
+	 * @throws Exception Si el fichero tiene algn error de formato.
+	 */
+	private static long leer(Fuente_lineas entrada) throws Exception{
+		long resumen = 0;
+		String tipo;
+		while((tipo = entrada.leer()) != null){
+			if(tipo.trim().equals("") || tipo.equals("*"))
+				continue;
+			int ID = entrada.siguienteEntero("ID");
+			String descripcion = entrada.siguiente("descripcin");
+			String propietario = entrada.siguiente("propietario");
+			int prioridad = entrada.siguienteEntero("prioridad");
+			String estado = entrada.siguiente("estado");
+			String fecha = entrada.siguiente("fecha");
+			String dependencias = entrada.siguiente("dependencias");
+			resumen += resumir(tipo, ID, descripcion, propietario, prioridad, estado, fecha, dependencias);
+		}
+		return resumen;
+	}
+
+	/**
+	 * Mtodo que resume los campos de una tarea en un nmero, para comprobar que todas las formas leen lo mismo y
+	 * para que no se pueda omitir la lectura de ningn campo.
+	 * @param tipo Tipo de la tarea.
+	 * @param ID Identificador de la tarea.
+	 * @param descripcion Descripcin de la tarea.
+	 * @param propietario Nombre del propietario de la tarea.
+	 * @param prioridad Prioridad de la tarea.
+	 * @param estado Estado de la tarea.
+	 * @param fecha Fecha de plazo de la tarea, o "-" si no tiene.
+	 * @param dependencias Lista de dependencias de la tarea, tal como est en el fichero.
+	 * @return Un nmero que depende de todos los campos.
+	 */
+	private static long resumir(String tipo, int ID, String descripcion, String propietario, int prioridad,
+			String estado, String fecha, String dependencias){
+		return ID + prioridad + tipo.length() + descripcion.hashCode() + propietario.hashCode() + estado.length()
+				+ fecha.hashCode() + dependencias.hashCode();
+	}
+}
@@ -0,0 +1,152 @@
+package gestion;
+
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Clase que hace puntos de control en segundo plano cuando se usa un {@link Diario diario de cambios}.
+ * En un punto de control se escriben los datos completos en los ficheros de datos y se quitan del diario los cambios
+ * que ya contienen, para que el diario no crezca sin lmite y el arranque no tenga que aplicar cada vez ms cambios.<br>
+ * Se hace un punto de control cuando el diario alcanza un tamao o cuando pasa un tiempo desde el anterior, y siempre
+ * en estos pasos:
+ * <ol>
+ * <li>Con los datos bloqueados, se copian en memoria (<i>ver {@link Copia_datos}</i>) los datos de los ficheros que
+ * han cambiado y se pide al diario la posicin que separa los cambios que contienen la copia y los ficheros sin
+ * cambios de los posteriores. Ninguno de los dos pasos espera a ningn fichero ni da formato a las tareas, as que las
+ * sesiones apenas notan el bloqueo.</li>
+ * <li>Ya sin bloquear los datos, se espera a que el diario tenga escritos los cambios anteriores a esa posicin, se
+ * escribe la copia en ficheros temporales y se fuerza su escritura en disco.</li>
+ * <li>Se deja junto al diario la marca del punto de control (<i>ver {@link Diario#MARCA}</i>), con la posicin y los
+ * ficheros de datos que se van a sustituir.</li>
+ * <li>Se renombra cada fichero temporal sobre su fichero de datos.</li>
+ * <li>Se quita del diario la parte ya guardada y se borra la marca.</li>
+ * </ol>
+ * Si el programa termina antes del tercer paso, los ficheros de datos no han cambiado y al arrancar se aplica el
+ * diario completo. Si termina despus, la marca sigue ah y, al abrir el diario, se sustituyen los ficheros de datos
+ * que falten y se quita del diario la parte guardada, si no se haba quitado. En ningn caso se leen ficheros de datos
+ * de puntos de control distintos ni se vuelven a aplicar cambios que ya estn en los ficheros.
+ * @author Jaime Alonso Lorenzo
+ *
+ */
+class Punto_control {
+
+	/**
+	 * Tamao del diario, en bytes, a partir del cual se hace por defecto un punto de control.
+	 */
+	static final long TAMANO = 4 << 20;
+
+	/**
+	 * Tiempo, en milisegundos, tras el cual se hace por defecto un punto de control.
+	 */
+	static final long PERIODO = 10*60*1000;
+
+	/**
+	 * Cada cuntos milisegundos se comprueba si hay que hacer un punto de control.
+	 */
+	static final long COMPROBACION = 1000;
+
+	/**
+	 * Ficheros en los que se guardan los datos.
+	 */
+	private Acceso_ficheros ficheros;
+
+	/**
+	 * Datos que se guardan.
+	 */
+	private Acceso_datos datos;
+
+	/**
+	 * Diario de cambios de los datos.
+	 */
+	private Diario diario;
+
+	/**
+	 * Tamao del diario a partir del cual se hace un punto de control, o 0 si no se tiene en cuenta.
+	 */
+	private long tamano;
+
+	/**
+	 * Tiempo tras el cual se hace un punto de control, o 0 si no se tiene en cuenta.
+	 */
+	private long periodo;
+
+	/**
+	 * Momento en el que se hizo el ltimo punto de control.
+	 */
+	private long ultimo = System.currentTimeMillis();
+
+	/**
+	 * Temporizador que comprueba si hay que hacer un punto de control.
+	 */
+	private Timer reloj = new Timer("Punto de control", true);
+
+	/**
+	 * Indica si se han dejado de hacer puntos de control.
+	 */
+	private boolean detenido = false;
+
+	/**
+	 * Constructor que empieza a comprobar peridicamente si hay que hacer un punto de control.
+	 * @param ficheros Ficheros en los que se guardan los datos.
+	 * @param datos Datos que se guardan.
+	 * @param diario Diario de cambios de los datos.
+	 * @param tamano Tamao del diario, en bytes, a partir del cual se hace un punto de control, o 0.
+	 * @param periodo Tiempo, en milisegundos, tras el cual se hace un punto de control, o 0.
+	 */
+	Punto_control(Acceso_ficheros ficheros, Acceso_datos datos, Diario diario, long tamano, long periodo){
+		this.ficheros = ficheros;
+		this.datos = datos;
+		this.diario = diario;
+		this.tamano = tamano;
+		this.periodo = periodo;
+		reloj.schedule(new TimerTask(){
+			public void run(){
+				try{
+					comprobar();
+				}
+				catch(Exception e){
+					System.err.println("No se pudo hacer el punto de control: "+e.getMessage());
+				}
+			}
+		}, COMPROBACION, COMPROBACION);
+	}
+
+	/**
+	 * Mtodo que hace un punto de control si el diario ha alcanzado el tamao indicado o ha pasado el tiempo indicado.
+	 * @throws Exception Si hay algn error al escribir los ficheros.
+	 */
+	private void comprobar() throws Exception{
+		long actual = diario.getTamano();
+		if(actual == 0)
+			return;
+		if((tamano > 0 && actual >= tamano) || (periodo > 0 && System.currentTimeMillis() - ultimo >= periodo))
+			hacer();
+	}
+
+	/**
+	 * Mtodo que hace un punto de control.
+	 * @throws Exception Si hay algn error al escribir los ficheros.
+	 */
+	synchronized void hacer() throws Exception{
+		if(detenido)
+			return;
+		Copia_datos copia;
+		synchronized(datos){
+			copia = ficheros.copiar(datos);
+			diario.marcarCorte();
+		}
+		long cubierto = diario.getCorte();
+		diario.marcarPunto(cubierto, ficheros.escribirCopia(copia));
+		ficheros.confirmarCopia(datos, copia);
+		diario.descartarHasta(cubierto);
+		ultimo = System.currentTimeMillis();
+	}
+
+	/**
+	 * Mtodo que deja de hacer puntos de control. Si se est haciendo uno, espera a que termine.
+	 */
+	synchronized void detener(){
+		detenido = true;
+		reloj.cancel();
+	}
+}
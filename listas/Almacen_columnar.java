@@ -0,0 +1,411 @@
+package listas;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+import tareas.Tarea;
+import tareas.Tarea_con_plazo;
+import usuarios.Grupo_usuarios;
+import usuarios.Propietario;
+import usuarios.Usuario;
+
+/**
+ * Clase que guarda los datos de las tareas por columnas, para poder filtrarlas y ordenarlas recorriendo vectores de
+ * tipos primitivos en vez de saltar de objeto en objeto por la memoria.<br>
+ * Cada tarea ocupa una fila, y cada dato est en su propio vector: el ID, la prioridad, el plazo, el estado y el
+ * propietario (<i>como un nmero de orden</i>). Las descripciones se guardan aparte, ya que slo hacen falta para
+ * desempatar al ordenar, y en otro vector estn las propias tareas, que es lo que se devuelve.<br>
+ * Las tareas eliminadas slo se marcan, y sus filas se recuperan compactando los vectores cuando son demasiadas, de
+ * modo que las filas siempre siguen el orden en el que se aadieron las tareas.<br>
+ * Los datos se copian de las tareas al aadirlas, por lo que cualquier cambio posterior en una tarea debe hacerse
+ * tambin aqu. De ello se encarga la {@link Lista_tareas}.
+ * @author Jaime Alonso Lorenzo
+ *
+ */
+public class Almacen_columnar {
+
+	/**
+	 * Indicador de que la tarea de la fila est pendiente.
+	 */
+	private static final byte PENDIENTE = 1;
+
+	/**
+	 * Indicador de que la tarea de la fila es una tarea con plazo.
+	 */
+	private static final byte CON_PLAZO = 2;
+
+	/**
+	 * Indicador de que la tarea de la fila ha sido eliminada.
+	 */
+	private static final byte ELIMINADA = 4;
+
+	/**
+	 * Nmero mnimo de filas eliminadas a partir del cual se compactan los vectores.
+	 */
+	private static final int COMPACTAR = 64;
+
+	/**
+	 * ID de la tarea de cada fila.
+	 */
+	private int [] IDs;
+
+	/**
+	 * Prioridad de la tarea de cada fila.
+	 */
+	private int [] prioridades;
+
+	/**
+	 * Plazo de la tarea de cada fila, en milisegundos, o 0 si no tiene.
+	 */
+	private long [] plazos;
+
+	/**
+	 * Indicadores de cada fila ({@link #PENDIENTE}, {@link #CON_PLAZO} y {@link #ELIMINADA}).
+	 */
+	private byte [] estados;
+
+	/**
+	 * Nmero de orden, segn {@link #ordinales}, del propietario de la tarea de cada fila.
+	 */
+	private int [] propietarios;
+
+	/**
+	 * Descripcin de la tarea de cada fila.
+	 */
+	private String [] descripciones;
+
+	/**
+	 * Tarea de cada fila.
+	 */
+	private Tarea [] tareas;
+
+	/**
+	 * Nmero de filas ocupadas, incluidas las de tareas eliminadas.
+	 */
+	private int filas = 0;
+
+	/**
+	 * Nmero de filas de tareas eliminadas.
+	 */
+	private int eliminadas = 0;
+
+	/**
+	 * Fila que ocupa cada tarea, segn su ID. Es un mapa y no un vector indexado por el ID porque los IDs pueden ser
+	 * cualquier nmero positivo, por grande que sea.
+	 */
+	private HashMap<Integer, Integer> indice = new HashMap<Integer, Integer>();
+
+	/**
+	 * Nmero de orden de cada propietario, segn el orden en el que aparecieron en el almacn.
+	 */
+	private HashMap<Propietario, Integer> ordinales = new HashMap<Propietario, Integer>();
+
+	/**
+	 * Constructor de un almacn vaco.
+	 * @param capacidad Nmero de tareas que se espera guardar.
+	 */
+	public Almacen_columnar(int capacidad){
+		capacidad = Math.max(capacidad, 16);
+		IDs = new int[capacidad];
+		prioridades = new int[capacidad];
+		plazos = new long[capacidad];
+		estados = new byte[capacidad];
+		propietarios = new int[capacidad];
+		descripciones = new String[capacidad];
+		tareas = new Tarea[capacidad];
+	}
+
+	/**
+	 * Mtodo que aade una tarea en una fila nueva, al final del almacn.
+	 * @param t Tarea que se desea aadir.
+	 */
+	public void addTarea(Tarea t){
+		if(filas == IDs.length)
+			ampliar(IDs.length*2);
+		escribir(filas, t);
+		indexar(t.getID(), filas);
+		filas++;
+	}
+
+	/**
+	 * Mtodo que sustituye una tarea por otra con el mismo ID, manteniendo su fila.
+	 * @param tarea Tarea nueva.
+	 */
+	public void setCambios(Tarea tarea){
+		int fila = buscarFila(tarea.getID());
+		if(fila >= 0)
+			escribir(fila, tarea);
+	}
+
+	/**
+	 * Mtodo que elimina una tarea del almacn.
+	 * @param t Tarea que se desea eliminar.
+	 */
+	public void eliminarTarea(Tarea t){
+		int fila = buscarFila(t.getID());
+		if(fila < 0)
+			return;
+		indice.remove(t.getID());
+		estados[fila] |= ELIMINADA;
+		tareas[fila] = null;
+		descripciones[fila] = null;
+		eliminadas++;
+		if(eliminadas >= COMPACTAR && eliminadas*2 >= filas)
+			compactar();
+	}
+
+	/**
+	 * Mtodo que actualiza la prioridad de una tarea del almacn.
+	 * @param t Tarea modificada.
+	 */
+	public void setPrioridad(Tarea t){
+		int fila = buscarFila(t.getID());
+		if(fila >= 0)
+			prioridades[fila] = t.getPrioridad();
+	}
+
+	/**
+	 * Mtodo que actualiza el estado de una tarea del almacn.
+	 * @param t Tarea modificada.
+	 */
+	public void setPendiente(Tarea t){
+		int fila = buscarFila(t.getID());
+		if(fila < 0)
+			return;
+		if(t.isPendiente())
+			estados[fila] |= PENDIENTE;
+		else
+			estados[fila] &= ~PENDIENTE;
+	}
+
+	/**
+	 * Mtodo que actualiza la descripcin de una tarea del almacn.
+	 * @param t Tarea modificada.
+	 */
+	public void setDescripcion(Tarea t){
+		int fila = buscarFila(t.getID());
+		if(fila >= 0)
+			descripciones[fila] = t.getDescripcion();
+	}
+
+	/**
+	 * Mtodo que selecciona, en un solo recorrido, las filas de las tareas de un usuario (<i>las suyas y las de sus
+	 * grupos</i>) que tienen el estado indicado.
+	 * @param u Usuario cuyas tareas se seleccionan.
+	 * @param pendiente true para seleccionar las pendientes, false para las terminadas, o null para todas.
+	 * @return Las filas seleccionadas, en el orden en el que se aadieron las tareas.
+	 */
+	public int [] seleccionar(Usuario u, Boolean pendiente){
+		boolean [] propios = new boolean[ordinales.size()];
+		marcar(propios, u);
+		for(Grupo_usuarios g : u.getGrupos())
+			marcar(propios, g);
+		byte mascara = (pendiente == null) ? ELIMINADA : ELIMINADA | PENDIENTE;
+		byte buscado = (pendiente != null && pendiente) ? PENDIENTE : 0;
+
+		int [] seleccion = new int[16];
+		int n = 0;
+		for(int i = 0; i < filas; i++){
+			if(!propios[propietarios[i]] || (estados[i] & mascara) != buscado)
+				continue;
+			if(n == seleccion.length)
+				seleccion = Arrays.copyOf(seleccion, n*2);
+			seleccion[n++] = i;
+		}
+		return Arrays.copyOf(seleccion, n);
+	}
+
+	/**
+	 * Mtodo que ordena unas filas segn la prioridad o la fecha de plazo de sus tareas, y en caso de empate, segn
+	 * su descripcin. El orden es el mismo que el de {@link tareas.Tarea#compareTo(Tarea, String)}: al ordenar por
+	 * fecha, las tareas simples van antes que las que tienen plazo. La ordenacin es estable.
+	 * @param seleccion Filas que se desean ordenar. Se ordenan sobre el propio vector.
+	 * @param parametro Parmetro segn el cual se ordena (<i>prioridad</i> o <i>fecha</i>). Con cualquier otro, se
+	 * ordena slo por la descripcin.
+	 * @param ascendente true para ordenar de menor a mayor, false de mayor a menor.
+	 */
+	public void ordenar(int [] seleccion, String parametro, boolean ascendente){
+		long [] claves = new long[seleccion.length];
+		for(int i = 0; i < seleccion.length; i++){
+			int fila = seleccion[i];
+			if(parametro.equals("prioridad"))
+				claves[i] = prioridades[fila];
+			else if(parametro.equals("fecha"))
+				claves[i] = ((estados[fila] & CON_PLAZO) != 0) ? plazos[fila] : Long.MIN_VALUE;
+		}
+		int signo = ascendente ? 1 : -1;
+		int [] filasAux = new int[seleccion.length];
+		long [] clavesAux = new long[seleccion.length];
+		for(int ancho = 1; ancho < seleccion.length; ancho *= 2){
+			for(int inicio = 0; inicio < seleccion.length; inicio += 2*ancho){
+				int medio = Math.min(inicio+ancho, seleccion.length);
+				int fin = Math.min(inicio+2*ancho, seleccion.length);
+				int i = inicio, j = medio, k = inicio;
+				while(i < medio && j < fin){
+					if(comparar(claves[j], seleccion[j], claves[i], seleccion[i], signo) < 0){
+						clavesAux[k] = claves[j];
+						filasAux[k++] = seleccion[j++];
+					}
+					else{
+						clavesAux[k] = claves[i];
+						filasAux[k++] = seleccion[i++];
+					}
+				}
+				while(i < medio){
+					clavesAux[k] = claves[i];
+					filasAux[k++] = seleccion[i++];
+				}
+				while(j < fin){
+					clavesAux[k] = claves[j];
+					filasAux[k++] = seleccion[j++];
+				}
+			}
+			System.arraycopy(filasAux, 0, seleccion, 0, seleccion.length);
+			System.arraycopy(clavesAux, 0, claves, 0, seleccion.length);
+		}
+	}
+
+	/**
+	 * Mtodo que devuelve las tareas de unas filas.
+	 * @param seleccion Filas de las tareas.
+	 * @return Una lista nueva con las tareas, en el orden de las filas.
+	 */
+	public LinkedList<Tarea> getTareas(int [] seleccion){
+		LinkedList<Tarea> lista = new LinkedList<Tarea>();
+		for(int fila : seleccion)
+			lista.add(tareas[fila]);
+		return lista;
+	}
+
+	/**
+	 * Mtodo que compara dos filas a partir de sus claves y, si empatan, de sus descripciones.
+	 * @param clave1 Clave de la primera fila.
+	 * @param fila1 Primera fila.
+	 * @param clave2 Clave de la segunda fila.
+	 * @param fila2 Segunda fila.
+	 * @param signo 1 para orden ascendente, -1 para descendente.
+	 * @return Un nmero negativo si la primera fila va antes, 0 si empatan, o positivo si va despus.
+	 */
+	private int comparar(long clave1, int fila1, long clave2, int fila2, int signo){
+		int retorno = signo*Long.compare(clave1, clave2);
+		if(retorno == 0)
+			retorno = signo*descripciones[fila1].compareTo(descripciones[fila2]);
+		return retorno;
+	}
+
+	/**
+	 * Mtodo que devuelve la fila que ocupa una tarea. Como las filas siguen el orden en el que se aadieron las
+	 * tareas, que es el de la {@link Lista_tareas}, sirve para saber cul de dos tareas va antes en la lista.
+	 * @param t Tarea que se busca.
+	 * @return La fila de la tarea, o -1 si no est en el almacn.
+	 */
+	public int getFila(Tarea t){
+		return buscarFila(t.getID());
+	}
+
+	/**
+	 * Mtodo que busca la fila que ocupa una tarea.
+	 * @param ID ID de la tarea.
+	 * @return La fila de la tarea, o -1 si no est en el almacn.
+	 */
+	private int buscarFila(int ID){
+		Integer fila = indice.get(ID);
+		return (fila != null) ? fila : -1;
+	}
+
+	/**
+	 * Mtodo que registra la fila que ocupa una tarea.
+	 * @param ID ID de la tarea.
+	 * @param fila Fila que ocupa.
+	 */
+	private void indexar(int ID, int fila){
+		indice.put(ID, fila);
+	}
+
+	/**
+	 * Mtodo que copia los datos de una tarea en una fila.
+	 * @param fila Fila en la que se escriben.
+	 * @param t Tarea de la que se copian.
+	 */
+	private void escribir(int fila, Tarea t){
+		IDs[fila] = t.getID();
+		prioridades[fila] = t.getPrioridad();
+		byte estado = t.isPendiente() ? PENDIENTE : 0;
+		if(t instanceof Tarea_con_plazo){
+			estado |= CON_PLAZO;
+			plazos[fila] = ((Tarea_con_plazo)t).getPlazo();
+		}
+		else
+			plazos[fila] = 0;
+		estados[fila] = estado;
+		propietarios[fila] = ordinal(t.getPropietario());
+		descripciones[fila] = t.getDescripcion();
+		tareas[fila] = t;
+	}
+
+	/**
+	 * Mtodo que devuelve el nmero de orden de un propietario, asignndole uno nuevo si no lo tena.
+	 * @param p Propietario que se desea buscar.
+	 * @return Su nmero de orden.
+	 */
+	private int ordinal(Propietario p){
+		Integer ordinal = ordinales.get(p);
+		if(ordinal != null)
+			return ordinal;
+		ordinal = ordinales.size();
+		ordinales.put(p, ordinal);
+		return ordinal;
+	}
+
+	/**
+	 * Mtodo que marca un propietario en un vector indexado por nmero de orden, si tiene uno.
+	 * @param propios Vector en el que se marca.
+	 * @param p Propietario que se marca.
+	 */
+	private void marcar(boolean [] propios, Propietario p){
+		Integer ordinal = ordinales.get(p);
+		if(ordinal != null)
+			propios[ordinal] = true;
+	}
+
+	/**
+	 * Mtodo que quita las filas de las tareas eliminadas, manteniendo el orden de las dems.
+	 */
+	private void compactar(){
+		int destino = 0;
+		for(int i = 0; i < filas; i++){
+			if((estados[i] & ELIMINADA) != 0)
+				continue;
+			if(destino != i){
+				IDs[destino] = IDs[i];
+				prioridades[destino] = prioridades[i];
+				plazos[destino] = plazos[i];
+				estados[destino] = estados[i];
+				propietarios[destino] = propietarios[i];
+				descripciones[destino] = descripciones[i];
+				tareas[destino] = tareas[i];
+				indexar(IDs[destino], destino);
+			}
+			destino++;
+		}
+		Arrays.fill(descripciones, destino, filas, null);
+		Arrays.fill(tareas, destino, filas, null);
+		filas = destino;
+		eliminadas = 0;
+	}
+
+	/**
+	 * Mtodo que ampla la capacidad de todos los vectores.
+	 * @param capacidad Nueva capacidad.
+	 */
+	private void ampliar(int capacidad){
+		IDs = Arrays.copyOf(IDs, capacidad);
+		prioridades = Arrays.copyOf(prioridades, capacidad);
+		plazos = Arrays.copyOf(plazos, capacidad);
+		estados = Arrays.copyOf(estados, capacidad);
+		propietarios = Arrays.copyOf(propietarios, capacidad);
+		descripciones = Arrays.copyOf(descripciones, capacidad);
+		tareas = Arrays.copyOf(tareas, capacidad);
+	}
+}
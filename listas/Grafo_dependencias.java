@@ -0,0 +1,284 @@
+package listas;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import tareas.Conjunto_IDs;
+
+/**
+ * Clase que representa el grafo de dependencias entre tareas.
+ * Guarda las dependencias en los dos sentidos (de qu tareas depende cada tarea, y qu tareas dependen de ella),
+ * y calcula las dependencias indirectas de forma iterativa, marcando las tareas ya visitadas en un BitSet.<br>
+ * Los cierres transitivos que se calculan se guardan en una cach por tarea. Al modificar una arista, slo se
+ * descartan los cierres que pueden verse afectados por ella.<br>
+ * Todos los recorridos son iterativos y no visitan dos veces la misma tarea, por lo que terminan aunque el grafo
+ * contenga ciclos o cadenas muy largas. Para evitar que aparezcan ciclos nuevos, antes de aadir una arista se
+ * puede comprobar con {@link #creariaCiclo(int, int)}.
+ * @author Jaime Alonso Lorenzo
+ *
+ */
+public class Grafo_dependencias {
+
+	/**
+	 * Para cada ID, el conjunto de IDs de las tareas de las que depende.
+	 */
+	private HashMap<Integer, Conjunto_IDs> dependencias = new HashMap<Integer, Conjunto_IDs>();
+
+	/**
+	 * Para cada ID, el conjunto de IDs de las tareas que dependen de ella.
+	 */
+	private HashMap<Integer, Conjunto_IDs> dependientes = new HashMap<Integer, Conjunto_IDs>();
+
+	/**
+	 * Cach de los cierres transitivos de las dependencias de cada tarea.
+	 */
+	private HashMap<Integer, BitSet> cacheDependencias = new HashMap<Integer, BitSet>();
+
+	/**
+	 * Cach de los cierres transitivos de las tareas dependientes de cada tarea.
+	 */
+	private HashMap<Integer, BitSet> cacheDependientes = new HashMap<Integer, BitSet>();
+
+	/**
+	 * Mtodo que registra que la tarea ID depende de la tarea dependencia.
+	 * @param ID ID de la tarea dependiente.
+	 * @param dependencia ID de la tarea de la que depende.
+	 */
+	public void addArista(int ID, int dependencia){
+		invalidar(ID, dependencia);
+		anadir(dependencias, ID, dependencia);
+		anadir(dependientes, dependencia, ID);
+	}
+
+	/**
+	 * Mtodo que elimina el registro de que la tarea ID depende de la tarea dependencia.
+	 * @param ID ID de la tarea dependiente.
+	 * @param dependencia ID de la tarea de la que depende.
+	 */
+	public void eliminarArista(int ID, int dependencia){
+		invalidar(ID, dependencia);
+		quitar(dependencias, ID, dependencia);
+		quitar(dependientes, dependencia, ID);
+	}
+
+	/**
+	 * Mtodo que elimina del grafo cualquier informacin guardada sobre una tarea.
+	 * Se supone que las aristas de la tarea ya se han eliminado con {@link #eliminarArista(int, int)}.
+	 * @param ID ID de la tarea eliminada.
+	 */
+	public void eliminarNodo(int ID){
+		cacheDependencias.remove(ID);
+		cacheDependientes.remove(ID);
+	}
+
+	/**
+	 * Mtodo que recupera las tareas que dependen directamente de otra tarea.
+	 * @param ID ID de la tarea que se desea buscar.
+	 * @return Un conjunto nuevo con los IDs de las tareas dependientes.
+	 */
+	public Conjunto_IDs getDependientes(int ID){
+		Conjunto_IDs conjunto = dependientes.get(ID);
+		if(conjunto == null)
+			return new Conjunto_IDs();
+		return new Conjunto_IDs(conjunto);
+	}
+
+	/**
+	 * Mtodo que indica si aadir la dependencia indicada cerrara un ciclo en el grafo.
+	 * Esto ocurre cuando la tarea dependencia ya depende, directa o indirectamente, de la tarea ID.
+	 * El recorrido se detiene en cuanto se encuentra la tarea ID, y aprovecha los cierres de la cach.
+	 * @param ID ID de la tarea dependiente.
+	 * @param dependencia ID de la tarea de la que dependera.
+	 * @return true si la nueva dependencia creara un ciclo.
+	 */
+	public boolean creariaCiclo(int ID, int dependencia){
+		if(ID == dependencia)
+			return true;
+		BitSet conocido = cacheDependencias.get(dependencia);
+		if(conocido != null)
+			return conocido.get(ID);
+
+		BitSet visitados = new BitSet();
+		int [] pila = new int[16];
+		int cima = 0;
+		pila[cima++] = dependencia;
+		visitados.set(dependencia);
+		while(cima > 0){
+			Conjunto_IDs vecinos = dependencias.get(pila[--cima]);
+			if(vecinos == null)
+				continue;
+			for(int i = 0; i < vecinos.size(); i++){
+				int v = vecinos.get(i);
+				if(v == ID)
+					return true;
+				if(visitados.get(v))
+					continue;
+				visitados.set(v);
+				conocido = cacheDependencias.get(v);
+				if(conocido != null){
+					if(conocido.get(ID))
+						return true;
+				}
+				else{
+					if(cima == pila.length){
+						int [] aux = new int[pila.length*2];
+						System.arraycopy(pila, 0, aux, 0, cima);
+						pila = aux;
+					}
+					pila[cima++] = v;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Mtodo que calcula el cierre transitivo de las dependencias de una tarea.
+	 * @param ID ID de la tarea.
+	 * @return Un BitSet con los IDs de todas las tareas de las que depende, directa o indirectamente.
+	 */
+	public BitSet getDependenciasIndirectas(int ID){
+		return (BitSet) clausura(ID, dependencias, cacheDependencias).clone();
+	}
+
+	/**
+	 * Mtodo que calcula el cierre transitivo de las tareas que dependen de una tarea.
+	 * @param ID ID de la tarea.
+	 * @return Un BitSet con los IDs de todas las tareas que dependen de ella, directa o indirectamente.
+	 */
+	public BitSet getDependientesIndirectos(int ID){
+		return (BitSet) clausura(ID, dependientes, cacheDependientes).clone();
+	}
+
+	/**
+	 * Mtodo que devuelve el cierre transitivo de una tarea siguiendo la relacin indicada. Si no est en la cach,
+	 * se calcula y se guarda en ella.
+	 * @param ID ID de la tarea de partida.
+	 * @param adyacencia Relacin que se sigue en el recorrido.
+	 * @param cache Cach de cierres correspondiente a la relacin.
+	 * @return El cierre transitivo de la tarea. No debe modificarse, ya que queda guardado en la cach.
+	 */
+	private BitSet clausura(int ID, HashMap<Integer, Conjunto_IDs> adyacencia, HashMap<Integer, BitSet> cache){
+		BitSet visitados = cache.get(ID);
+		if(visitados == null){
+			visitados = recorrer(ID, adyacencia, cache);
+			cache.put(ID, visitados);
+		}
+		return visitados;
+	}
+
+	/**
+	 * Mtodo que recorre el grafo de forma iterativa a partir de una tarea, siguiendo la relacin indicada.
+	 * Si al recorrerlo se llega a una tarea cuyo cierre ya est en la cach, se usa directamente en vez de
+	 * seguir recorriendo a partir de ella. El resultado no se guarda en la cach.
+	 * @param ID ID de la tarea de partida.
+	 * @param adyacencia Relacin que se sigue en el recorrido.
+	 * @param cache Cach de cierres correspondiente a la relacin.
+	 * @return Un BitSet nuevo con el cierre transitivo de la tarea.
+	 */
+	private static BitSet recorrer(int ID, HashMap<Integer, Conjunto_IDs> adyacencia, HashMap<Integer, BitSet> cache){
+		BitSet visitados = cache.get(ID);
+		if(visitados != null)
+			return (BitSet) visitados.clone();
+
+		visitados = new BitSet();
+		int [] pila = new int[16];
+		int cima = 0;
+		pila[cima++] = ID;
+		while(cima > 0){
+			Conjunto_IDs vecinos = adyacencia.get(pila[--cima]);
+			if(vecinos == null)
+				continue;
+			for(int i = 0; i < vecinos.size(); i++){
+				int v = vecinos.get(i);
+				if(visitados.get(v))
+					continue;
+				visitados.set(v);
+				BitSet conocido = cache.get(v);
+				if(conocido != null){
+					visitados.or(conocido);
+				}
+				else{
+					if(cima == pila.length){
+						int [] aux = new int[pila.length*2];
+						System.arraycopy(pila, 0, aux, 0, cima);
+						pila = aux;
+					}
+					pila[cima++] = v;
+				}
+			}
+		}
+		return visitados;
+	}
+
+	/**
+	 * Mtodo que descarta de la cach los cierres que cambian al aadir o quitar la arista indicada.
+	 * Slo cambian las dependencias indirectas de la propia tarea y de las que dependen de ella, y las
+	 * tareas dependientes de la dependencia y de aquellas de las que sta depende. Esas tareas se obtienen
+	 * recorriendo el grafo antes de modificarlo, aprovechando los cierres que ya hay en la cach, y slo
+	 * se descartan sus cierres, sin recorrer el resto de la cach.
+	 * @param ID ID de la tarea dependiente.
+	 * @param dependencia ID de la tarea de la que depende.
+	 */
+	private void invalidar(int ID, int dependencia){
+		if(!cacheDependencias.isEmpty()){
+			BitSet afectadas = recorrer(ID, dependientes, cacheDependientes);
+			cacheDependencias.remove(ID);
+			descartar(cacheDependencias, afectadas);
+		}
+		if(!cacheDependientes.isEmpty()){
+			BitSet afectadas = recorrer(dependencia, dependencias, cacheDependencias);
+			cacheDependientes.remove(dependencia);
+			descartar(cacheDependientes, afectadas);
+		}
+	}
+
+	/**
+	 * Mtodo que descarta de una cach los cierres de las tareas indicadas.
+	 * @param cache Cach que se modifica.
+	 * @param IDs IDs de las tareas cuyos cierres se descartan.
+	 */
+	private static void descartar(HashMap<Integer, BitSet> cache, BitSet IDs){
+		if(IDs.cardinality() > cache.size()){
+			for(Iterator<Integer> i = cache.keySet().iterator(); i.hasNext();){
+				if(IDs.get(i.next()))
+					i.remove();
+			}
+		}
+		else{
+			for(int v = IDs.nextSetBit(0); v >= 0; v = IDs.nextSetBit(v+1))
+				cache.remove(v);
+		}
+	}
+
+	/**
+	 * Mtodo que aade un valor al conjunto asociado a una clave.
+	 * @param mapa Relacin que se modifica.
+	 * @param clave Clave del conjunto.
+	 * @param valor Valor que se aade.
+	 */
+	private static void anadir(HashMap<Integer, Conjunto_IDs> mapa, int clave, int valor){
+		Conjunto_IDs conjunto = mapa.get(clave);
+		if(conjunto == null){
+			conjunto = new Conjunto_IDs();
+			mapa.put(clave, conjunto);
+		}
+		conjunto.add(valor);
+	}
+
+	/**
+	 * Mtodo que quita un valor del conjunto asociado a una clave.
+	 * @param mapa Relacin que se modifica.
+	 * @param clave Clave del conjunto.
+	 * @param valor Valor que se quita.
+	 */
+	private static void quitar(HashMap<Integer, Conjunto_IDs> mapa, int clave, int valor){
+		Conjunto_IDs conjunto = mapa.get(clave);
+		if(conjunto == null)
+			return;
+		conjunto.remove(valor);
+		if(conjunto.isEmpty())
+			mapa.remove(clave);
+	}
+}
@@ -0,0 +1,141 @@
+package listas;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import tareas.Tarea;
+
+/**
+ * Clase que implementa un ndice invertido de trigramas sobre las descripciones de las tareas.
+ * Cada descripcin se normaliza (minsculas y sin tildes ni diresis, de modo que "tramite" encuentra "trmite")
+ * y se descompone en todas sus subcadenas de {@link #N} caracteres. Para cada una de ellas se guarda el conjunto de
+ * IDs de las tareas que la contienen.<br>
+ * Para buscar una cadena, se cruzan los conjuntos de sus trigramas empezando por el ms pequeo, y despus se
+ * comprueba que cada candidata contenga realmente la cadena completa.
+ * @author Jaime Alonso Lorenzo
+ *
+ */
+public class Indice_descripciones {
+
+	/**
+	 * Longitud de las subcadenas que se indexan.
+	 */
+	public static final int N = 3;
+
+	/**
+	 * Para cada trigrama, los IDs de las tareas cuya descripcin lo contiene.
+	 */
+	private HashMap<String, HashSet<Integer>> trigramas = new HashMap<String, HashSet<Integer>>();
+
+	/**
+	 * Descripcin normalizada de cada tarea indexada, segn su ID.
+	 */
+	private HashMap<Integer, String> normalizadas = new HashMap<Integer, String>();
+
+	/**
+	 * Mtodo que aade la descripcin de una tarea al ndice.
+	 * @param t Tarea que se desea indexar.
+	 */
+	public void addTarea(Tarea t){
+		String descripcion = normalizar(t.getDescripcion());
+		normalizadas.put(t.getID(), descripcion);
+		for(int i = 0; i + N <= descripcion.length(); i++){
+			String trigrama = descripcion.substring(i, i + N);
+			HashSet<Integer> ids = trigramas.get(trigrama);
+			if(ids == null){
+				ids = new HashSet<Integer>();
+				trigramas.put(trigrama, ids);
+			}
+			ids.add(t.getID());
+		}
+	}
+
+	/**
+	 * Mtodo que quita la descripcin de una tarea del ndice.
+	 * @param t Tarea que se desea quitar.
+	 */
+	public void eliminarTarea(Tarea t){
+		String descripcion = normalizadas.remove(t.getID());
+		if(descripcion == null)
+			return;
+		for(int i = 0; i + N <= descripcion.length(); i++){
+			String trigrama = descripcion.substring(i, i + N);
+			HashSet<Integer> ids = trigramas.get(trigrama);
+			if(ids == null)
+				continue;
+			ids.remove(t.getID());
+			if(ids.isEmpty())
+				trigramas.remove(trigrama);
+		}
+	}
+
+	/**
+	 * Mtodo que indica si la descripcin indexada de una tarea contiene la cadena indicada.
+	 * @param ID ID de la tarea.
+	 * @param consulta Cadena ya normalizada con {@link #normalizar(String)}.
+	 * @return true si la descripcin contiene la cadena.
+	 */
+	public boolean contiene(int ID, String consulta){
+		String descripcion = normalizadas.get(ID);
+		return descripcion != null && descripcion.contains(consulta);
+	}
+
+	/**
+	 * Mtodo que busca las tareas cuya descripcin contiene la cadena indicada.
+	 * La cadena debe tener al menos {@link #N} caracteres una vez normalizada.
+	 * @param consulta Cadena ya normalizada con {@link #normalizar(String)}.
+	 * @return Una lista, sin ningn orden en particular, con los IDs de las tareas cuya descripcin contiene la cadena.
+	 */
+	public ArrayList<Integer> buscar(String consulta){
+		ArrayList<Integer> resultado = new ArrayList<Integer>();
+		ArrayList<HashSet<Integer>> conjuntos = new ArrayList<HashSet<Integer>>();
+		HashSet<Integer> menor = null;
+		for(int i = 0; i + N <= consulta.length(); i++){
+			HashSet<Integer> ids = trigramas.get(consulta.substring(i, i + N));
+			if(ids == null)
+				return resultado;
+			conjuntos.add(ids);
+			if(menor == null || ids.size() < menor.size())
+				menor = ids;
+		}
+		if(menor == null)
+			return resultado;
+
+		for(Integer ID : menor){
+			boolean candidata = true;
+			for(HashSet<Integer> ids : conjuntos){
+				if(ids != menor && !ids.contains(ID)){
+					candidata = false;
+					break;
+				}
+			}
+			if(candidata && contiene(ID, consulta))
+				resultado.add(ID);
+		}
+		return resultado;
+	}
+
+	/**
+	 * Mtodo que normaliza una cadena para su comparacin: la pasa a minsculas y le quita las tildes y diresis.
+	 * La letra  se conserva.
+	 * @param cadena Cadena que se desea normalizar.
+	 * @return La cadena normalizada.
+	 */
+	public static String normalizar(String cadena){
+		String descompuesta = Normalizer.normalize(cadena.toLowerCase(), Normalizer.Form.NFD);
+		StringBuilder retorno = new StringBuilder(descompuesta.length());
+		for(int i = 0; i < descompuesta.length(); i++){
+			char c = descompuesta.charAt(i);
+			if(Character.getType(c) == Character.NON_SPACING_MARK){
+				int ultimo = retorno.length() - 1;
+				if(c == '\u0303' && ultimo >= 0 && retorno.charAt(ultimo) == 'n')
+					retorno.setCharAt(ultimo, '');
+				continue;
+			}
+			retorno.append(c);
+		}
+		return retorno.toString();
+	}
+}
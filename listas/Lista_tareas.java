@@ -1,12 +1,24 @@
 package listas;
 
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.ListIterator;
+import java.util.TreeMap;
 
+import tareas.Conjunto_IDs;
+import tareas.Generar_ID;
 import tareas.Tarea;
-import tareas.Tarea_simple;
 import tareas.Tarea_con_plazo;
 import usuarios.Grupo_usuarios;
+import usuarios.Propietario;
 import usuarios.Usuario;
 
 /**
@@ -22,27 +34,113 @@ public class Lista_tareas {
 	 */
 	private LinkedList<Tarea> tareas = new LinkedList<Tarea>();
 	
+	/**
+	 * ndice de las tareas segn su ID. Se mantiene sincronizado con la lista {@link #tareas}.
+	 */
+	private HashMap<Integer, Tarea> indice = new HashMap<Integer, Tarea>();
+	
+	/**
+	 * Grafo de dependencias entre las tareas de la lista.
+	 * Se actualiza al aadir o eliminar tareas y dependencias a travs de esta clase.
+	 */
+	private Grafo_dependencias grafo = new Grafo_dependencias();
+	
+	/**
+	 * ndice de las tareas segn su propietario. Cada propietario tiene su propia lista de tareas,
+	 * en el mismo orden en el que aparecen en {@link #tareas}.
+	 */
+	private HashMap<Propietario, LinkedList<Tarea>> propietarios = new HashMap<Propietario, LinkedList<Tarea>>();
+	
+	/**
+	 * ndice de las tareas con plazo, ordenadas segn su fecha de plazo en milisegundos.
+	 */
+	private TreeMap<Long, LinkedList<Tarea_con_plazo>> plazos = new TreeMap<Long, LinkedList<Tarea_con_plazo>>();
+	
+	/**
+	 * Copia por columnas de los datos de las tareas, sobre la que se filtran y ordenan los listados.
+	 */
+	private Almacen_columnar almacen;
+	
+	/**
+	 * ndice de trigramas sobre las descripciones de las tareas.
+	 */
+	private Indice_descripciones descripciones = new Indice_descripciones();
+	
+	/**
+	 * Generador de IDs, al que se le avisa de las IDs que se ocupan y se liberan.
+	 */
+	private Generar_ID generador = new Generar_ID();
+	
+	/**
+	 * Nmero de cambios hechos en la lista desde que se cre. Permite saber, sin recorrer la lista, si ha cambiado
+	 * desde un momento dado.
+	 */
+	private long version = 0;
+	
 	/**
 	 * Constructor de la clase
 	 * @param tareas Lista de tareas
 	 */
 	public Lista_tareas(LinkedList<Tarea> tareas){
 		this.tareas = tareas;
+		almacen = new Almacen_columnar(tareas.size());
+		for(Tarea t: tareas){
+			indice.put(t.getID(), t);
+			enlazarDependencias(t);
+			getTareasPropias(t.getPropietario()).add(t);
+			addPlazo(t);
+			descripciones.addTarea(t);
+			almacen.addTarea(t);
+			generador.ocupar(t.getID());
+		}
 	}
 
 	/**
 	 * Mtodo de bsqueda de tareas segn su ID nico.
 	 * @param ID El ID numrico nico de la tarea.
 	 * @return La tarea que se buscaba.
+	 * @throws Exception Si la tarea no existe.
 	 */
 	public Tarea buscarID(int ID) throws Exception{
-		
-		for(Tarea t: tareas){
-			if(ID == t.getID()){
-				return t;
-			}
-		}
-		throw new Exception("No se ha podido encontrar la tarea seleccionada.");
+		Tarea t = consultarID(ID);
+		if(t == null)
+			throw new Exception("No se ha podido encontrar la tarea seleccionada.");
+		return t;
+	}
+	
+	/**
+	 * Mtodo de bsqueda de tareas segn su ID nico, que no lanza excepciones si la tarea no existe.
+	 * Se usa cuando es habitual que la tarea buscada no exista.
+	 * @param ID El ID numrico nico de la tarea.
+	 * @return La tarea que se buscaba, o null si no existe.
+	 */
+	public Tarea consultarID(int ID){
+		return indice.get(ID);
+	}
+	
+	/**
+	 * Mtodo que devuelve el nmero de cambios hechos en la lista desde que se cre. Cada mtodo que modifica la
+	 * lista lo incrementa, as que si no ha variado, la lista no ha cambiado.
+	 * @return La versin actual de la lista.
+	 */
+	public long getVersion(){
+		return version;
+	}
+	
+	/**
+	 * Mtodo que indica que se ha modificado directamente una tarea de la lista (<i>por ejemplo, su prioridad o su
+	 * estado</i>), para que cuente como un cambio de la lista.
+	 */
+	public void marcarCambio(){
+		version++;
+	}
+	
+	/**
+	 * Mtodo que devuelve el generador de IDs asociado a esta lista.
+	 * @return Un generador de IDs que se mantiene actualizado con las tareas de la lista.
+	 */
+	public Generar_ID getGenerador(){
+		return generador;
 	}
 	
 	/**
@@ -55,41 +153,96 @@ public class Lista_tareas {
 	
 	/**
 	 * Mtodo de bsqueda de tareas segn su fecha de plazo.
-	 * @param fecha La fecha de plazo a buscar.
+	 * @param fecha La fecha de plazo a buscar, de la forma <i>dd/MM/yyyy</i>.
 	 * @param u Usuario que desea buscar las tareas.
-	 * @return Una lista de tareas que tienen la fecha buscada.
+	 * @return Una lista de tareas que tienen la fecha buscada. Si la fecha no es vlida, la lista estar vaca.
 	 */
 	public LinkedList<Tarea> buscarFecha(String fecha, Usuario u){
+		SimpleDateFormat formato = new SimpleDateFormat("dd/MM/yyyy");
+		formato.setLenient(false);
+		ParsePosition posicion = new ParsePosition(0);
+		Date dia = formato.parse(fecha, posicion);
+		if(dia == null || posicion.getIndex() != fecha.length())
+			return new LinkedList<Tarea>();
 		
+		Calendar siguiente = Calendar.getInstance();
+		siguiente.setTime(dia);
+		siguiente.add(Calendar.DAY_OF_MONTH, 1);
+		return buscarRangoFechas(dia, siguiente.getTime(), u);
+	}
+	
+	/**
+	 * Mtodo de bsqueda de tareas cuyo plazo est dentro de un intervalo de fechas.
+	 * @param desde Principio del intervalo (<i>incluido</i>).
+	 * @param hasta Final del intervalo (<i>excluido</i>).
+	 * @param u Usuario que desea buscar las tareas.
+	 * @return Una lista de tareas del usuario, ordenadas por su fecha de plazo.
+	 */
+	public LinkedList<Tarea> buscarRangoFechas(Date desde, Date hasta, Usuario u){
+		LinkedList<Tarea> lista = new LinkedList<Tarea>();
+		if(!desde.before(hasta))
+			return lista;
+		for(LinkedList<Tarea_con_plazo> mismoPlazo : plazos.subMap(desde.getTime(), hasta.getTime()).values()){
+			for(Tarea_con_plazo t : mismoPlazo){
+				if(t.perteneceA(u))
+					lista.add(t);
+			}
+		}
+		return lista;
+	}
+	
+	/**
+	 * Mtodo que recupera las prximas tareas pendientes que vencen a partir del momento actual.
+	 * @param n Nmero mximo de tareas que se desean obtener.
+	 * @param u Usuario que desea obtener las tareas.
+	 * @return Una lista de, como mucho, n tareas del usuario, ordenadas por su fecha de plazo.
+	 */
+	public LinkedList<Tarea> getProximasTareas(int n, Usuario u){
 		LinkedList<Tarea> lista = new LinkedList<Tarea>();
-		for(Tarea t: getTareasUsuario(u)){
-			if(t instanceof Tarea_simple)
-				continue;
-			else if(fecha.equals(((Tarea_con_plazo)t).toStringFechaCompacta()))
-				lista.add(t);
+		for(LinkedList<Tarea_con_plazo> mismoPlazo : plazos.tailMap(System.currentTimeMillis(), false).values()){
+			for(Tarea_con_plazo t : mismoPlazo){
+				if(lista.size() == n)
+					return lista;
+				if(t.isPendiente() && t.perteneceA(u))
+					lista.add(t);
+			}
 		}
 		return lista;
 	}
 	
 	/**
 	 * Mtodo de bsqueda de tareas segn una cadena contenida en su descripcin.
-	 * La comparacin se hace sin importar el uso de maysculas o minsculas.
+	 * La comparacin se hace sin importar el uso de maysculas o minsculas, ni de tildes.
+	 * Si la cadena es lo bastante larga, se usa el {@link Indice_descripciones ndice de trigramas};
+	 * si no, se recorren las tareas del usuario. En ambos casos, las tareas se devuelven en el orden de la lista, como
+	 * en {@link #getTareasUsuario(Usuario)}.
 	 * @param cadena Cadena a buscar.
 	 * @param u Usuario que desea buscar las tareas.
-	 * @return Una lista de tareas cuya descripcin contiene la cadena buscada.
+	 * @return Una lista de tareas cuya descripcin contiene la cadena buscada, en el orden de la lista.
 	 */
 	public LinkedList<Tarea> buscarDescripcion(String cadena, Usuario u){
-		String auxMinusculas;
-		String cadenaMinusculas = cadena.toLowerCase();
+		String consulta = Indice_descripciones.normalizar(cadena);
 		LinkedList<Tarea> lista = new LinkedList<Tarea>();
-		for(Tarea t: getTareasUsuario(u)){
-			auxMinusculas = t.getDescripcion().toLowerCase();
-			if(auxMinusculas.contains(cadenaMinusculas)){
-				lista.add(t);
+		if(consulta.length() < Indice_descripciones.N){
+			for(Tarea t: getTareasUsuario(u)){
+				if(descripciones.contiene(t.getID(), consulta))
+					lista.add(t);
 			}
 		}
+		else{
+			ArrayList<Integer> encontradas = descripciones.buscar(consulta);
+			int [] seleccion = new int[encontradas.size()];
+			int n = 0;
+			for(Integer ID : encontradas){
+				Tarea t = indice.get(ID);
+				if(t.perteneceA(u))
+					seleccion[n++] = almacen.getFila(t);
+			}
+			seleccion = Arrays.copyOf(seleccion, n);
+			Arrays.sort(seleccion);
+			lista = almacen.getTareas(seleccion);
+		}
 		return lista;
-		
 	}
 	
 	/**
@@ -99,14 +252,20 @@ public class Lista_tareas {
 	 * @param tarea Tarea que se desea introducir en la lista.
 	 */
 	public void setCambios(Tarea tarea){
-		int indice;
-		for(Tarea t: tareas){
-			if(tarea.getID() == t.getID()){
-				indice = tareas.indexOf(t);
-				tareas.remove(t);
-				tareas.add(indice,tarea);
-			}
-		}
+		Tarea anterior = indice.get(tarea.getID());
+		if(anterior == null)
+			return;
+		version++;
+		tareas.set(tareas.indexOf(anterior), tarea);
+		indice.put(tarea.getID(), tarea);
+		sustituirPropietario(anterior, tarea);
+		quitarPlazo(anterior);
+		addPlazo(tarea);
+		descripciones.eliminarTarea(anterior);
+		descripciones.addTarea(tarea);
+		almacen.setCambios(tarea);
+		desenlazarDependencias(anterior);
+		enlazarDependencias(tarea);
 	}
 	
 	/**
@@ -115,7 +274,15 @@ public class Lista_tareas {
 	 * @param u Usuario que la est aadiendo.
 	 */
 	public void addTarea(Tarea t, Usuario u){
+		version++;
 		tareas.add(t);
+		indice.put(t.getID(), t);
+		enlazarDependencias(t);
+		getTareasPropias(t.getPropietario()).add(t);
+		addPlazo(t);
+		descripciones.addTarea(t);
+		almacen.addTarea(t);
+		generador.ocupar(t.getID());
 	}
 	
 	/**
@@ -123,20 +290,141 @@ public class Lista_tareas {
 	 * @param t Tarea que se desea eliminar de la lista.
 	 */
 	public void eliminarTarea(Tarea t) throws Exception{
+		version++;
 		tareas.remove(t);
+		indice.remove(t.getID());
+		desenlazarDependencias(t);
+		quitarPropietario(t);
+		quitarPlazo(t);
+		descripciones.eliminarTarea(t);
+		almacen.eliminarTarea(t);
+		generador.liberar(t.getID());
+		grafo.eliminarNodo(t.getID());
+	}
+	
+	/**
+	 * Mtodo que permite modificar la descripcin de una tarea, manteniendo actualizado el ndice de descripciones.
+	 * @param t Tarea que se desea modificar.
+	 * @param descripcion La nueva descripcin de la tarea.
+	 */
+	public void modDescripcion(Tarea t, String descripcion){
+		version++;
+		descripciones.eliminarTarea(t);
+		t.setDescripcion(descripcion);
+		descripciones.addTarea(t);
+		almacen.setDescripcion(t);
+	}
+	
+	/**
+	 * Mtodo que permite modificar la prioridad de una tarea, manteniendo actualizado el almacn por columnas.
+	 * @param t Tarea que se desea modificar.
+	 * @param prioridad La nueva prioridad de la tarea.
+	 */
+	public void modPrioridad(Tarea t, int prioridad){
+		version++;
+		t.setPrioridad(prioridad);
+		almacen.setPrioridad(t);
+	}
+	
+	/**
+	 * Mtodo que permite modificar el estado de una tarea, manteniendo actualizado el almacn por columnas.
+	 * @param t Tarea que se desea modificar.
+	 * @param pendiente El nuevo estado de la tarea.
+	 */
+	public void modEstado(Tarea t, boolean pendiente){
+		version++;
+		t.setPendiente(pendiente);
+		almacen.setPendiente(t);
+	}
+	
+	/**
+	 * Mtodo que permite aadir una dependencia a una tarea, manteniendo actualizada la relacin inversa.
+	 * @param t Tarea que se desea modificar.
+	 * @param dependencia ID de la dependencia que se desea aadir.
+	 * @throws Exception Si la nueva dependencia creara una dependencia circular.
+	 */
+	public void addDependencia(Tarea t, int dependencia) throws Exception{
+		if(grafo.creariaCiclo(t.getID(), dependencia))
+			throw new Exception("Error 11: La dependencia indicada creara una dependencia circular.");
+		version++;
+		t.addDependencia(dependencia);
+		grafo.addArista(t.getID(), dependencia);
+	}
+	
+	/**
+	 * Mtodo que permite eliminar una dependencia de una tarea, manteniendo actualizada la relacin inversa.
+	 * @param t Tarea que se desea modificar.
+	 * @param dependencia ID de la dependencia que se desea eliminar.
+	 * @throws Exception Si la tarea no contiene esa dependencia.
+	 */
+	public void eliminarDependencia(Tarea t, int dependencia) throws Exception{
+		version++;
+		t.eliminarDependencia(dependencia);
+		grafo.eliminarArista(t.getID(), dependencia);
+	}
+	
+	/**
+	 * Mtodo que registra en el grafo todas las dependencias de una tarea.
+	 * @param t Tarea cuyas dependencias se registran.
+	 */
+	private void enlazarDependencias(Tarea t){
+		Conjunto_IDs dependencias = t.getDependencias();
+		for(int i = 0; i < dependencias.size(); i++){
+			grafo.addArista(t.getID(), dependencias.get(i));
+		}
+	}
+	
+	/**
+	 * Mtodo que elimina del grafo todas las dependencias de una tarea.
+	 * @param t Tarea cuyas dependencias se eliminan.
+	 */
+	private void desenlazarDependencias(Tarea t){
+		Conjunto_IDs dependencias = t.getDependencias();
+		for(int i = 0; i < dependencias.size(); i++){
+			grafo.eliminarArista(t.getID(), dependencias.get(i));
+		}
 	}
 	
 	/**
 	 * Mtodo que permite recuperar la lista completa de tareas pertenecientes a un usuario.
+	 * Las tareas del usuario y las de cada uno de sus grupos se toman del ndice de propietarios, y se mezclan segn
+	 * su fila en el {@link Almacen_columnar almacn por columnas}, de modo que quedan en el orden de la lista.
 	 * @param usuario Usuario del que se desea recuperar la lista.
-	 * @return Una lista de tareas pertenecientes al usuario.
+	 * @return Una lista de tareas pertenecientes al usuario, en el orden de la lista.
 	 */
 	public LinkedList<Tarea> getTareasUsuario(Usuario usuario){
+		ArrayList<Iterator<Tarea>> fuentes = new ArrayList<Iterator<Tarea>>();
+		LinkedList<Tarea> propias = propietarios.get(usuario);
+		if(propias != null && !propias.isEmpty())
+			fuentes.add(propias.iterator());
+		for(Grupo_usuarios g: usuario.getGrupos()){
+			propias = propietarios.get(g);
+			if(propias != null && !propias.isEmpty())
+				fuentes.add(propias.iterator());
+		}
+		Tarea [] siguientes = new Tarea[fuentes.size()];
+		int [] filas = new int[fuentes.size()];
+		for(int i = 0; i < siguientes.length; i++){
+			siguientes[i] = fuentes.get(i).next();
+			filas[i] = almacen.getFila(siguientes[i]);
+		}
 		LinkedList<Tarea> contenedor = new LinkedList<Tarea>();
-		for(Tarea t: tareas){
-			if(t.perteneceA(usuario))
-				contenedor.add(t);
+		while(true){
+			int menor = -1;
+			for(int i = 0; i < siguientes.length; i++){
+				if(siguientes[i] != null && (menor < 0 || filas[i] < filas[menor]))
+					menor = i;
+			}
+			if(menor < 0)
+				break;
+			contenedor.add(siguientes[menor]);
+			if(fuentes.get(menor).hasNext()){
+				siguientes[menor] = fuentes.get(menor).next();
+				filas[menor] = almacen.getFila(siguientes[menor]);
 			}
+			else
+				siguientes[menor] = null;
+		}
 		return contenedor;
 	}
 	
@@ -146,24 +434,117 @@ public class Lista_tareas {
 	 * @return Una lista de todas las tareas pertenecientes al grupo indicado.
 	 */
 	public LinkedList<Tarea> getTareasGrupo(Grupo_usuarios g){
-		LinkedList<Tarea> contenedor = new LinkedList<Tarea>();
-		for(Tarea t: tareas){
-			if(t.perteneceA(g))
-				contenedor.add(t);
+		return getTareasPropietario(g);
+	}
+	
+	/**
+	 * Mtodo que permite obtener las tareas cuyo propietario es exactamente el indicado.
+	 * En el caso de un usuario, no incluye las tareas de sus grupos.
+	 * @param p Propietario del que se desean obtener las tareas.
+	 * @return Una lista nueva con las tareas del propietario.
+	 */
+	public LinkedList<Tarea> getTareasPropietario(Propietario p){
+		LinkedList<Tarea> propias = propietarios.get(p);
+		if(propias == null)
+			return new LinkedList<Tarea>();
+		return new LinkedList<Tarea>(propias);
+	}
+	
+	/**
+	 * Mtodo que devuelve la lista de tareas de un propietario dentro del ndice, crendola si no existe.
+	 * @param p Propietario de las tareas.
+	 * @return La lista de tareas del propietario.
+	 */
+	private LinkedList<Tarea> getTareasPropias(Propietario p){
+		LinkedList<Tarea> propias = propietarios.get(p);
+		if(propias == null){
+			propias = new LinkedList<Tarea>();
+			propietarios.put(p, propias);
+		}
+		return propias;
+	}
+	
+	/**
+	 * Mtodo que sustituye una tarea por otra en el ndice de propietarios, manteniendo el orden de la lista de
+	 * tareas. Se supone que la nueva tarea ya ocupa en {@link #tareas} la posicin de la anterior.
+	 * @param anterior Tarea que se sustituye.
+	 * @param tarea Tarea que ocupa su lugar.
+	 */
+	private void sustituirPropietario(Tarea anterior, Tarea tarea){
+		if(anterior.getPropietario().equals(tarea.getPropietario())){
+			LinkedList<Tarea> propias = propietarios.get(anterior.getPropietario());
+			for(ListIterator<Tarea> i = propias.listIterator(); i.hasNext();){
+				if(i.next() == anterior){
+					i.set(tarea);
+					return;
+				}
 			}
-		return contenedor;
+		}
+		quitarPropietario(anterior);
+		LinkedList<Tarea> propias = getTareasPropias(tarea.getPropietario());
+		int posicion = 0;
+		for(Tarea t : tareas){
+			if(t == tarea)
+				break;
+			if(t.getPropietario().equals(tarea.getPropietario()))
+				posicion++;
+		}
+		propias.add(posicion, tarea);
 	}
 	
 	/**
-	 * Mtodo que junta en una lista los IDs de todas las tareas disponibles.
-	 * @return Una lista con todos los IDs.
+	 * Mtodo que aade una tarea al ndice de plazos, si es una tarea con plazo.
+	 * @param t Tarea que se desea aadir.
 	 */
-	public ArrayList<Integer> getIDs(){
-		ArrayList<Integer> ID = new ArrayList<Integer>();
-		for(Tarea t: tareas){
-			ID.add(t.getID());
+	private void addPlazo(Tarea t){
+		if(!(t instanceof Tarea_con_plazo))
+			return;
+		long clave = ((Tarea_con_plazo)t).getPlazo();
+		LinkedList<Tarea_con_plazo> mismoPlazo = plazos.get(clave);
+		if(mismoPlazo == null){
+			mismoPlazo = new LinkedList<Tarea_con_plazo>();
+			plazos.put(clave, mismoPlazo);
 		}
-		return ID;
+		mismoPlazo.add((Tarea_con_plazo)t);
+	}
+	
+	/**
+	 * Mtodo que quita una tarea del ndice de plazos, si es una tarea con plazo.
+	 * @param t Tarea que se desea quitar.
+	 */
+	private void quitarPlazo(Tarea t){
+		if(!(t instanceof Tarea_con_plazo))
+			return;
+		long clave = ((Tarea_con_plazo)t).getPlazo();
+		LinkedList<Tarea_con_plazo> mismoPlazo = plazos.get(clave);
+		if(mismoPlazo == null)
+			return;
+		for(Iterator<Tarea_con_plazo> i = mismoPlazo.iterator(); i.hasNext();){
+			if(i.next() == t){
+				i.remove();
+				break;
+			}
+		}
+		if(mismoPlazo.isEmpty())
+			plazos.remove(clave);
+	}
+	
+	/**
+	 * Mtodo que quita una tarea del ndice de propietarios.
+	 * @param t Tarea que se desea quitar.
+	 */
+	private void quitarPropietario(Tarea t){
+		LinkedList<Tarea> propias = propietarios.get(t.getPropietario());
+		if(propias == null)
+			return;
+		for(Iterator<Tarea> i = propias.iterator(); i.hasNext();){
+			if(i.next() == t){
+				i.remove();
+				break;
+			}
+		}
+		if(propias.isEmpty())
+			propietarios.remove(t.getPropietario());
 	}
 	
 	/**
@@ -172,61 +553,75 @@ public class Lista_tareas {
 	 * @return Una lista de IDs de tareas dependientes.
 	 */
 	public ArrayList<Integer> getDependientes(int ID){
-		ArrayList<Integer> lista = new ArrayList<Integer>();
-		for(Tarea t: tareas){
-			if(t.getDependencias().contains(ID))
-				lista.add(t.getID());
+		Conjunto_IDs dependientes = grafo.getDependientes(ID);
+		ArrayList<Integer> lista = new ArrayList<Integer>(dependientes.size());
+		for(int i = 0; i < dependientes.size(); i++){
+			lista.add(dependientes.get(i));
 		}
 		return lista;
 	}
 	
 	/**
 	 * Mtodo que recupera la lista de tareas de las que depende otra tarea indirectamente.
+	 * No incluye las tareas de las que depende directamente, y cada tarea aparece una sola vez.
 	 * @param ID ID de la tarea que se desea buscar.
-	 * @return Una lista de IDs de dependencias indirectas.
+	 * @return Una lista ordenada de IDs de dependencias indirectas.
 	 * @throws Exception Si la tarea no existe.
 	 */
 	public ArrayList<Integer> getDependenciasIndirectas(int ID) throws Exception{
-		ArrayList<Integer> lista = new ArrayList<Integer>();
 		Tarea t = buscarID(ID);
-		lista.addAll(t.getDependencias());
-		for(Integer d : t.getDependencias()){
-			lista.addAll(getDependenciasIndirectas((int)d));
+		BitSet cierre = grafo.getDependenciasIndirectas(ID);
+		Conjunto_IDs dependencias = t.getDependencias();
+		for(int i = 0; i < dependencias.size(); i++){
+			cierre.clear(dependencias.get(i));
 		}
-		
-		return lista;
+		return aLista(cierre);
 	}
 	
 	/**
 	 * Mtodo que recupera la lista de tareas que dependen indirectamente de otra tarea.
+	 * No incluye las tareas que dependen directamente de ella, y cada tarea aparece una sola vez.
 	 * @param ID ID de la tarea que se desea buscar.
-	 * @return Una lista de IDs de tareas dependientes indirectamente.
+	 * @return Una lista ordenada de IDs de tareas dependientes indirectamente.
 	 */
 	public ArrayList<Integer> getDependientesIndirectos(int ID){
-		ArrayList<Integer> lista = new ArrayList<Integer>();	
-		lista.addAll(getDependientes(ID));
-		for(Integer d : getDependientes(ID)){
-			lista.addAll(getDependientesIndirectos((int)d));
+		BitSet cierre = grafo.getDependientesIndirectos(ID);
+		Conjunto_IDs dependientes = grafo.getDependientes(ID);
+		for(int i = 0; i < dependientes.size(); i++){
+			cierre.clear(dependientes.get(i));
 		}
-		return lista;
+		return aLista(cierre);
 	}
 	
 	/**
-	 * Mtodo que recupera la lista de tareas segn el estado que tengan.
-	 * @param pendiente Estado que se desea buscar.
-	 * @param u Usuario que desea buscar la lista de tareas.
-	 * @return Una lista de tareas, pertenecientes al usuario especificado, que tienen el estado escogido.
+	 * Mtodo que convierte un conjunto de IDs en una lista ordenada.
+	 * @param conjunto Conjunto de IDs.
+	 * @return Una lista con los IDs del conjunto, de menor a mayor.
 	 */
-	public LinkedList<Tarea> getTareasEstado(boolean pendiente, Usuario u){
-		LinkedList<Tarea> lista = new LinkedList<Tarea>();
-		for(Tarea t: getTareasUsuario(u)){
-			if(t.isPendiente() == pendiente){
-				lista.add(t);
-			}
+	private static ArrayList<Integer> aLista(BitSet conjunto){
+		ArrayList<Integer> lista = new ArrayList<Integer>(conjunto.cardinality());
+		for(int i = conjunto.nextSetBit(0); i >= 0; i = conjunto.nextSetBit(i+1)){
+			lista.add(i);
 		}
 		return lista;
 	}
 	
+	/**
+	 * Mtodo que recupera las tareas de un usuario, filtradas segn su estado y ordenadas segn un parmetro.
+	 * Tanto el filtro como la ordenacin se hacen sobre el {@link Almacen_columnar almacn por columnas}.
+	 * @param u Usuario que desea obtener las tareas.
+	 * @param pendiente true para obtener las pendientes, false para las terminadas, o null para todas.
+	 * @param parametro Parmetro segn el cual se ordena (<i>prioridad</i> o <i>fecha</i>). En caso de empate, se
+	 * ordena por la descripcin.
+	 * @param ascendente true para ordenar de menor a mayor, false de mayor a menor.
+	 * @return Una lista nueva con las tareas ordenadas.
+	 */
+	public LinkedList<Tarea> getTareasOrdenadas(Usuario u, Boolean pendiente, String parametro, boolean ascendente){
+		int [] seleccion = almacen.seleccionar(u, pendiente);
+		almacen.ordenar(seleccion, parametro, ascendente);
+		return almacen.getTareas(seleccion);
+	}
+	
 	/**
 	 * Mtodo que indica si una tarea puede modificar su estado.
 	 * @param t Tarea que se desea modificar.
@@ -237,14 +632,16 @@ public class Lista_tareas {
 	 */
 	public boolean puedeCambiarEstado(Tarea t) throws Exception{
 		if(t.isPendiente()){
-			for(Integer i : t.getDependencias()){
-				if(buscarID(i).isPendiente())
+			Conjunto_IDs dependencias = t.getDependencias();
+			for(int i = 0; i < dependencias.size(); i++){
+				if(buscarID(dependencias.get(i)).isPendiente())
 					throw new Exception("Error 6: Alguna tarea previa no est terminada.");
 			}
 		}
 		else{
-			for(Integer i : getDependientes(t.getID())){
-				if(!buscarID(i).isPendiente())
+			Conjunto_IDs dependientes = grafo.getDependientes(t.getID());
+			for(int i = 0; i < dependientes.size(); i++){
+				if(!buscarID(dependientes.get(i)).isPendiente())
 					throw new Exception("Error 7: Alguna tarea posterior ya est terminada.");
 			}
 		}
@@ -4,11 +4,11 @@ import gestion.Acceso_datos;
 import gestion.Acceso_email;
 import gestion.Acceso_ficheros;
 
-import java.util.ArrayList;
 import java.util.Scanner;
 
 
-import tareas.Generar_ID;
+import tareas.Conjunto_IDs;
+import tareas.Fuente_IDs;
 import tareas.Tarea;
 import tareas.Tarea_con_plazo;
 import tareas.Tarea_simple;
@@ -40,7 +40,7 @@ public class Menu {
 	/**
 	 * Generador de identificadores numricos nicos para las tareas.
 	 */
-	private Generar_ID generador;
+	private Fuente_IDs generador;
 	
 	/**
 	 * Constructor del Men a partir de los datos ledos en los ficheros.
@@ -187,7 +187,7 @@ public class Menu {
 		String estado = teclado.nextLine();
 		boolean pendiente = (estado.equalsIgnoreCase("pendiente")) ? true : false;
 		System.out.print("Dependencias (IDs separadas por comas, o guin en caso de no haberlas): ");
-		ArrayList<Integer> dependencias = datos.leerDependencias(teclado.nextLine());
+		Conjunto_IDs dependencias = datos.leerDependencias(teclado.nextLine());
 		datos.comprobarDependencias(dependencias);
 		
 		if(tipo.equals("con_plazo")){
@@ -537,12 +537,18 @@ public class Menu {
 
 	/**
 	 *	Mtodo que ejecuta las operaciones necesarias para salir del programa.
-	 *	Si detecta cambios en el objeto Acceso_datos actual con respecto al que se genera leyendolo de los ficheros,
+	 *	Si detecta cambios en el objeto Acceso_datos actual desde que se ley de los ficheros,
 	 *	se le muestra al usuario un men mediante el cual podr guardar los cambios que se han hecho, o bien descartarlos.
 	 *  La opcin de Guardar o Rechazar los cambios se aplica a los tres archivos del sistema en conjunto.
+	 *  Al guardar, slo se escriben los archivos cuyos datos han cambiado.
+	 *  Si se usa un diario de cambios, los cambios ya estn guardados, as que slo se termina de escribir el diario.
 	 * @throws Exception Si hay algn tipo de error al escribir en el fichero.
 	 */
 	private void salir() throws Exception {
+		if(datos.tieneDiario()){
+			datos.cerrarDiario();
+			System.exit(0);
+		}
 		if(ficheros.hayCambios(datos)){
 			System.out.println("\t 1) Guardar cambios");
 			System.out.println("\t 2) Descartar cambios");
@@ -552,9 +558,7 @@ public class Menu {
 			System.out.print("\t Opcin?: ");
 			int opcion = teclado.nextInt();
 			if(opcion == 1){
-				ficheros.escribirTareas(datos);
-				ficheros.escribirGrupos(datos);
-				ficheros.escribirUsuarios(datos);
+				ficheros.guardar(datos);
 			}
 			if (opcion == 0){
 				return;
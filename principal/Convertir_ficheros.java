@@ -0,0 +1,32 @@
+package principal;
+
+import gestion.Acceso_ficheros;
+
+/**
+ * Clase que convierte los ficheros de datos del programa entre el formato de texto y el formato binario.
+ * Lee los ficheros en el formato en el que estn y los vuelve a escribir, en el mismo sitio, en el formato indicado.
+ * @author Jaime Alonso Lorenzo
+ *
+ */
+public class Convertir_ficheros {
+
+	/**
+	 * Mtodo main del conversor.
+	 * @param args El formato al que se convierten los ficheros (<b>binario</b> o <b>texto</b>) y, opcionalmente,
+	 * los nombres de los ficheros de usuarios, grupos y tareas. Por defecto son los que usa el programa principal.
+	 * @throws Exception Si hay algn fallo al leer o escribir los ficheros.
+	 */
+	public static void main(String[] args) throws Exception{
+		if(args.length != 1 && args.length != 4){
+			System.err.println("Uso: Convertir_ficheros binario|texto [usuarios grupos tareas]");
+			System.exit(1);
+		}
+		Acceso_ficheros ficheros;
+		if(args.length == 4)
+			ficheros = new Acceso_ficheros(args[1], args[2], args[3]);
+		else
+			ficheros = new Acceso_ficheros("usuarios.txt", "grupos.txt", "tareas.txt");
+		ficheros.convertir(args[0]);
+		System.out.println("Ficheros convertidos al formato "+args[0]+".");
+	}
+}
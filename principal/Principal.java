@@ -27,11 +27,55 @@ public class Principal {
 
 	/**
 	 * Mtodo main del programa.
-	 * @param args Argumentos que se le pasen por lnea de comandos.
+	 * @param args Argumentos que se le pasen por lnea de comandos. Con <b>-multisesion</b>, las IDs de las tareas
+	 * nuevas se reservan en el fichero <b>ids.txt</b>, de modo que varias sesiones pueden trabajar a la vez. Con
+	 * <b>-mapeado</b>, los ficheros de datos se proyectan en memoria en vez de leerse secuencialmente, y con
+	 * <b>-paralelo</b>, adems, las tareas se leen con varios hilos. Con <b>-diario</b>, cada cambio se anota en el
+	 * fichero <b>diario.txt</b> en cuanto se hace, y no hace falta guardar al salir. Con <b>-autoguardado</b>, el
+	 * diario se escribe en segundo plano, agrupando los cambios por tandas, sin hacer esperar al usuario. Con
+	 * <b>-puntocontrol=KB,segundos</b> se indica cada cunto se vuelcan los datos a los ficheros y se vaca el diario:
+	 * cuando el diario alcanza ese tamao o pasa ese tiempo (<i>0 para no tener en cuenta alguno de los dos</i>).
+	 * <b>-diario</b> y <b>-autoguardado</b> no se pueden usar con <b>-multisesion</b>, y un mismo diario slo lo
+	 * puede usar una sesin a la vez.
 	 * @throws Exception Si hay algn fallo al leer los archivos.
 	 */
 	public static void main(String[] args) throws Exception{
 		
+		Acceso_ficheros ficheros = new Acceso_ficheros("usuarios.txt", "grupos.txt", "tareas.txt");
+		boolean multisesion = false, diario = false;
+		for(String opcion : args){
+			if(opcion.equals("-multisesion")){
+				ficheros.setFicheroIDs("ids.txt");
+				multisesion = true;
+			}
+			else if(opcion.equals("-mapeado"))
+				ficheros.setModoCarga(Acceso_ficheros.MAPEADO);
+			else if(opcion.equals("-paralelo"))
+				ficheros.setModoCarga(Acceso_ficheros.PARALELO);
+			else if(opcion.equals("-diario")){
+				ficheros.setFicheroDiario("diario.txt");
+				diario = true;
+			}
+			else if(opcion.equals("-autoguardado")){
+				ficheros.setFicheroDiario("diario.txt", true);
+				diario = true;
+			}
+			else if(opcion.startsWith("-puntocontrol=")){
+				long [] valores = leerPuntoControl(opcion.substring("-puntocontrol=".length()));
+				if(valores == null){
+					System.err.println("Uso: -puntocontrol=KB,segundos, con dos nmeros enteros no negativos (0 para no "
+							+"tener en cuenta alguno de los dos).");
+					System.exit(1);
+				}
+				ficheros.setPuntoControl(valores[0]*1024, valores[1]*1000);
+			}
+		}
+		if(multisesion && diario){
+			System.err.println("Las opciones -diario y -autoguardado no se pueden usar con -multisesion: los puntos de "
+					+"control escriben los ficheros de datos slo con los cambios de su propia sesin.");
+			System.exit(1);
+		}
+		
 		Scanner teclado = new Scanner(System.in);
 		
 		System.out.println("Bienvenido al sistema de gestin de tareas.");
@@ -47,10 +91,31 @@ public class Principal {
 			}
 		}while(usuario.endsWith("<T>") || usuario.endsWith("<I>"));
 		
-		Acceso_ficheros ficheros = new Acceso_ficheros("usuarios.txt", "grupos.txt", "tareas.txt");
-
 		new Menu(ficheros, usuario);
 	}
 	
+	/**
+	 * Mtodo que lee el valor de la opcin <b>-puntocontrol</b>.
+	 * @param valor Texto de la opcin tras el signo igual, con la forma <b>KB,segundos</b>.
+	 * @return El tamao en KB y el tiempo en segundos, o null si el valor no tiene exactamente dos nmeros enteros no
+	 * negativos o alguno es demasiado grande para pasarlo a bytes o a milisegundos.
+	 */
+	private static long [] leerPuntoControl(String valor){
+		String [] campos = valor.split(",", -1);
+		if(campos.length != 2)
+			return null;
+		long [] valores = new long [2];
+		try{
+			valores[0] = Long.parseLong(campos[0].trim());
+			valores[1] = Long.parseLong(campos[1].trim());
+		}
+		catch(NumberFormatException e){
+			return null;
+		}
+		if(valores[0] < 0 || valores[1] < 0 || valores[0] > Long.MAX_VALUE/1024 || valores[1] > Long.MAX_VALUE/1000)
+			return null;
+		return valores;
+	}
+	
 	
 }
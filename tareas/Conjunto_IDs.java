@@ -0,0 +1,185 @@
+package tareas;
+
+import java.util.Arrays;
+
+/**
+ * Clase que representa un conjunto de IDs de tareas, como las dependencias de una tarea.<br>
+ * Los IDs se guardan directamente en un vector de enteros, sin convertirlos en objetos, y en el orden en el que se
+ * aadieron. Un mismo ID slo puede estar una vez.<br>
+ * Como estos conjuntos suelen tener pocos elementos, las bsquedas recorren el vector, que ocupa posiciones contiguas
+ * de memoria. Para recorrer el conjunto sin crear ningn objeto se usan {@link #size()} y {@link #get(int)}.
+ * @author Jaime Alonso Lorenzo
+ *
+ */
+public class Conjunto_IDs {
+
+	/**
+	 * Vector compartido por todos los conjuntos vacos que an no han reservado espacio.
+	 */
+	private static final int [] VACIO = new int[0];
+
+	/**
+	 * IDs del conjunto. Slo son vlidas las primeras {@link #tamano} posiciones.
+	 */
+	private int [] IDs;
+
+	/**
+	 * Nmero de IDs del conjunto.
+	 */
+	private int tamano = 0;
+
+	/**
+	 * Constructor de un conjunto vaco.
+	 */
+	public Conjunto_IDs(){
+		IDs = VACIO;
+	}
+
+	/**
+	 * Constructor de un conjunto vaco con espacio reservado para un nmero de IDs.
+	 * @param capacidad Nmero de IDs que se espera guardar.
+	 */
+	public Conjunto_IDs(int capacidad){
+		IDs = (capacidad > 0) ? new int[capacidad] : VACIO;
+	}
+
+	/**
+	 * Constructor de un conjunto con los mismos IDs que otro.
+	 * @param otro Conjunto que se copia.
+	 */
+	public Conjunto_IDs(Conjunto_IDs otro){
+		IDs = (otro.tamano > 0) ? Arrays.copyOf(otro.IDs, otro.tamano) : VACIO;
+		tamano = otro.tamano;
+	}
+
+	/**
+	 * Mtodo que aade un ID al conjunto, si no estaba ya.
+	 * @param ID ID que se desea aadir.
+	 * @return true si se ha aadido, false si ya estaba en el conjunto.
+	 */
+	public boolean add(int ID){
+		if(contains(ID))
+			return false;
+		if(tamano == IDs.length)
+			IDs = Arrays.copyOf(IDs, Math.max(4, tamano*2));
+		IDs[tamano++] = ID;
+		return true;
+	}
+
+	/**
+	 * Mtodo que quita un ID del conjunto, manteniendo el orden de los dems.
+	 * @param ID ID que se desea quitar.
+	 * @return true si estaba en el conjunto.
+	 */
+	public boolean remove(int ID){
+		int i = indexOf(ID);
+		if(i < 0)
+			return false;
+		System.arraycopy(IDs, i+1, IDs, i, tamano-i-1);
+		tamano--;
+		return true;
+	}
+
+	/**
+	 * Mtodo que indica si un ID est en el conjunto.
+	 * @param ID ID que se desea buscar.
+	 * @return true si est en el conjunto.
+	 */
+	public boolean contains(int ID){
+		return indexOf(ID) >= 0;
+	}
+
+	/**
+	 * Mtodo que devuelve el nmero de IDs del conjunto.
+	 * @return El nmero de IDs.
+	 */
+	public int size(){
+		return tamano;
+	}
+
+	/**
+	 * Mtodo que indica si el conjunto est vaco.
+	 * @return true si no tiene ningn ID.
+	 */
+	public boolean isEmpty(){
+		return tamano == 0;
+	}
+
+	/**
+	 * Mtodo que devuelve el ID que ocupa una posicin, segn el orden en el que se aadieron.
+	 * @param i Posicin, entre 0 y {@link #size()}-1.
+	 * @return El ID de esa posicin.
+	 * @throws IndexOutOfBoundsException Si la posicin no es vlida.
+	 */
+	public int get(int i){
+		if(i < 0 || i >= tamano)
+			throw new IndexOutOfBoundsException("Posicin "+i+" de "+tamano);
+		return IDs[i];
+	}
+
+	/**
+	 * Mtodo que busca la posicin de un ID en el conjunto.
+	 * @param ID ID que se desea buscar.
+	 * @return La posicin del ID, o -1 si no est.
+	 */
+	private int indexOf(int ID){
+		for(int i = 0; i < tamano; i++){
+			if(IDs[i] == ID)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Mtodo que devuelve los IDs separados por comas, como se escriben en los ficheros de datos.
+	 * @return Una cadena con los IDs separados por comas, o "-" si el conjunto est vaco.
+	 */
+	public String toStringComas(){
+		if(tamano == 0)
+			return "-";
+		StringBuilder cadena = new StringBuilder(tamano*6);
+		for(int i = 0; i < tamano; i++){
+			if(i > 0)
+				cadena.append(',');
+			cadena.append(IDs[i]);
+		}
+		return cadena.toString();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder cadena = new StringBuilder(2+tamano*6).append('[');
+		for(int i = 0; i < tamano; i++){
+			if(i > 0)
+				cadena.append(", ");
+			cadena.append(IDs[i]);
+		}
+		return cadena.append(']').toString();
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 1;
+		for(int i = 0; i < tamano; i++)
+			hash = 31*hash + IDs[i];
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (!(obj instanceof Conjunto_IDs))
+			return false;
+		Conjunto_IDs other = (Conjunto_IDs) obj;
+		if (tamano != other.tamano)
+			return false;
+		for(int i = 0; i < tamano; i++){
+			if(IDs[i] != other.IDs[i])
+				return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,17 @@
+package tareas;
+
+/**
+ * Interfaz que define cmo se obtienen las IDs de las tareas nuevas.
+ * Permite usar tanto el generador de la lista de tareas ({@link Generar_ID}), que reutiliza las IDs libres, como el
+ * servicio compartido entre sesiones ({@link Servicio_ID}), que reparte bloques de IDs reservados en un fichero.
+ * @author Jaime Alonso Lorenzo
+ *
+ */
+public interface Fuente_IDs {
+
+	/**
+	 * Mtodo que devuelve una ID para una tarea nueva.
+	 * @return Una ID nica para identificar a una tarea.
+	 */
+	int getID();
+}
@@ -1,45 +1,101 @@
 package tareas;
 
-import java.util.ArrayList;
-
-import listas.Lista_tareas;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Clase que hace las operaciones necesarias para generar IDs nicas.
+ * No recorre la lista de tareas para buscar una ID libre, sino que la {@link listas.Lista_tareas Lista_tareas}
+ * le avisa cada vez que se ocupa o se libera una ID, y as se mantienen actualizadas las IDs disponibles.
  * @author Jaime Alonso Lorenzo
  *
  */
-public class Generar_ID {
+public class Generar_ID implements Fuente_IDs {
 
 	/**
-	 * Nmero de ID
-	 */
-	private int numID;
-	
-	/**
-	 * Lista de todas las tareas disponibles. Se usar para determinar las IDs libres.
+	 * Siguiente nmero de ID que no se ha usado nunca. Todas las IDs mayores o iguales que l estn libres.
+	 * Es un long para que pueda valer uno ms que Integer.MAX_VALUE si se llega a ocupar esa ID.
 	 */
-	private Lista_tareas l;
-	
+	private long numID = 1;
+
 	/**
-	 * Mtodo constuctor del generador de IDs
-	 * @param l Lista de todas las tareas disponibles.
+	 * Rangos de IDs libres menores que {@link #numID}, indexados por su primera ID y con la ltima como valor.
+	 * Los rangos no se solapan ni son contiguos entre s, de modo que un hueco grande entre IDs ocupa una sola
+	 * entrada.
 	 */
-	public Generar_ID(Lista_tareas l){
-		this.l = l;
-	}
-	
+	private TreeMap<Integer, Integer> libres = new TreeMap<Integer, Integer>();
+
 	/**
 	 * Mtodo que devuelve una ID nueva.
-	 * El mtodo recorre la lista de IDs de las tareas creadas, y devuelve el primer nmero que se encuentra libre.
+	 * Si hay alguna ID que haya quedado libre, se reutiliza la menor de ellas; si no, se devuelve la siguiente a la
+	 * mayor ID usada. La ID no se considera ocupada hasta que se aade a la lista una tarea con ella.
 	 * @return Una ID nica para identificar a una tarea.
+	 * @throws RuntimeException Si ya estn ocupadas todas las IDs.
 	 */
+	@Override
 	public int getID(){
-		numID = 1;
-		ArrayList<Integer> ID = l.getIDs();
-		while(ID.contains(numID)){
-			numID++;
+		if(!libres.isEmpty())
+			return libres.firstKey();
+		if(numID > Integer.MAX_VALUE)
+			throw new RuntimeException("No quedan IDs libres.");
+		return (int) numID;
+	}
+
+	/**
+	 * Mtodo que devuelve la menor ID a partir de la cual no se ha usado ninguna.
+	 * @return La siguiente a la mayor ID ocupada hasta ahora, o Integer.MAX_VALUE si ya se ha ocupado esa ID.
+	 */
+	public int getSiguienteSinUsar(){
+		return (int) Math.min(numID, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Mtodo que indica al generador que una ID ha pasado a estar ocupada.
+	 * Si la ID es mayor que las usadas hasta ahora, las IDs intermedias pasan a estar libres, formando un solo rango.
+	 * @param ID ID que se ha ocupado.
+	 */
+	public void ocupar(int ID){
+		if(ID < 1)
+			return;
+		if(ID >= numID){
+			if(ID > numID){
+				int inicio = (int) numID;
+				Map.Entry<Integer, Integer> ultimo = libres.lastEntry();
+				if(ultimo != null && ultimo.getValue() == numID - 1)
+					inicio = ultimo.getKey();
+				libres.put(inicio, ID - 1);
+			}
+			numID = (long) ID + 1;
+			return;
 		}
-		return numID;
+		Map.Entry<Integer, Integer> rango = libres.floorEntry(ID);
+		if(rango == null || rango.getValue() < ID)
+			return;
+		int inicio = rango.getKey(), fin = rango.getValue();
+		libres.remove(inicio);
+		if(inicio < ID)
+			libres.put(inicio, ID - 1);
+		if(ID < fin)
+			libres.put(ID + 1, fin);
+	}
+
+	/**
+	 * Mtodo que indica al generador que una ID ha dejado de estar ocupada, para que se pueda reutilizar.
+	 * Si es contigua a algn rango de IDs libres, se une a l.
+	 * @param ID ID que se ha liberado.
+	 */
+	public void liberar(int ID){
+		if(ID < 1 || ID >= numID)
+			return;
+		Map.Entry<Integer, Integer> anterior = libres.floorEntry(ID);
+		if(anterior != null && anterior.getValue() >= ID)
+			return;
+		int inicio = ID, fin = ID;
+		if(anterior != null && anterior.getValue() == ID - 1)
+			inicio = anterior.getKey();
+		Integer siguiente = libres.remove(ID + 1);
+		if(siguiente != null)
+			fin = siguiente;
+		libres.put(inicio, fin);
 	}
 }
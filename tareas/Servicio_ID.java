@@ -0,0 +1,107 @@
+package tareas;
+
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+
+/**
+ * Clase que genera IDs nicas cuando varias sesiones o varios hilos crean tareas a la vez sobre los mismos datos.
+ * En vez de buscar IDs libres en la lista de tareas, reparte bloques de {@link #TAMANO_BLOQUE} IDs consecutivas.
+ * La marca de la mayor ID reservada se guarda en un fichero, que se bloquea mientras se reserva un bloque, de modo
+ * que dos procesos nunca reciben el mismo bloque. La marca se escribe en disco antes de usar el bloque, as que tras
+ * una cada del programa las IDs siguen siendo nicas (<i>aunque pueden quedar huecos sin usar</i>).<br>
+ * Cada hilo tiene su propio bloque, por lo que slo se comparte el acceso al fichero, una vez cada
+ * {@link #TAMANO_BLOQUE} IDs.<br>
+ * A diferencia de {@link Generar_ID}, cada llamada a {@link #getID()} devuelve una ID distinta, y las IDs
+ * liberadas no se reutilizan. Por eso no sigue las IDs que se ocupan y se liberan en la lista de tareas, sino que
+ * slo comparte con el generador la forma de pedir una ID (<i>ver {@link Fuente_IDs}</i>).
+ * @author Jaime Alonso Lorenzo
+ *
+ */
+public class Servicio_ID implements Fuente_IDs {
+
+	/**
+	 * Nmero de IDs que se reservan de una vez.
+	 */
+	public static final int TAMANO_BLOQUE = 1024;
+
+	/**
+	 * Nombre del fichero en el que se guarda la marca de la mayor ID reservada.
+	 */
+	private String fichero;
+
+	/**
+	 * Menor ID que se puede repartir. Las anteriores ya estaban ocupadas al cargar los datos.
+	 */
+	private int minimo;
+
+	/**
+	 * Bloque de IDs de cada hilo, de la forma {siguiente ID, lmite del bloque}.
+	 */
+	private ThreadLocal<int []> bloques = new ThreadLocal<int []>();
+
+	/**
+	 * Constructor del servicio de IDs.
+	 * @param fichero Fichero en el que se guarda la marca de IDs reservadas. Se crea si no existe.
+	 * @param minimo Menor ID que se puede repartir.
+	 */
+	public Servicio_ID(String fichero, int minimo){
+		this.fichero = fichero;
+		this.minimo = minimo;
+	}
+
+	/**
+	 * Mtodo que devuelve una ID nueva, tomndola del bloque del hilo actual.
+	 * Si el bloque se ha agotado, reserva uno nuevo.
+	 * @return Una ID nica para identificar a una tarea.
+	 * @throws RuntimeException Si no se puede acceder al fichero de reserva.
+	 */
+	@Override
+	public int getID(){
+		int [] bloque = bloques.get();
+		if(bloque == null || bloque[0] == bloque[1]){
+			try{
+				bloque = reservarBloque();
+			}
+			catch(Exception e){
+				throw new RuntimeException("No se ha podido reservar un bloque de IDs: "+e.getMessage());
+			}
+			bloques.set(bloque);
+		}
+		return bloque[0]++;
+	}
+
+	/**
+	 * Mtodo que reserva un bloque de IDs nuevo, actualizando la marca del fichero mientras est bloqueado.
+	 * El bloque no pasa nunca de {@link Integer#MAX_VALUE}, as que el ltimo puede ser ms corto.
+	 * @return Un bloque de la forma {primera ID, lmite del bloque}.
+	 * @throws Exception Si hay algn error al leer o escribir el fichero, o si ya no quedan IDs por repartir.
+	 */
+	private synchronized int [] reservarBloque() throws Exception{
+		RandomAccessFile archivo = new RandomAccessFile(fichero, "rw");
+		try{
+			FileChannel canal = archivo.getChannel();
+			FileLock cerrojo = canal.lock();
+			try{
+				int inicio = minimo;
+				String linea = archivo.readLine();
+				if(linea != null && !linea.trim().equals(""))
+					inicio = Math.max(inicio, Integer.parseInt(linea.trim()));
+				int limite = (int) Math.min((long) inicio + TAMANO_BLOQUE, Integer.MAX_VALUE);
+				if(limite <= inicio)
+					throw new Exception("No quedan IDs por repartir.");
+				archivo.seek(0);
+				archivo.setLength(0);
+				archivo.writeBytes(limite+"\r\n");
+				canal.force(true);
+				return new int [] {inicio, limite};
+			}
+			finally{
+				cerrojo.release();
+			}
+		}
+		finally{
+			archivo.close();
+		}
+	}
+}
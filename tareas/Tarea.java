@@ -1,8 +1,5 @@
 package tareas;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-
 import usuarios.Grupo_usuarios;
 import usuarios.Propietario;
 import usuarios.Usuario;
@@ -40,7 +37,7 @@ public abstract class Tarea{
 	/**
 	 * Lista de dependencias de la tarea.
 	 */
-	private ArrayList<Integer> dependencias = new ArrayList<Integer> ();
+	private Conjunto_IDs dependencias = new Conjunto_IDs();
 	
 	/**
 	 * Prioridad de la tarea.
@@ -62,7 +59,7 @@ public abstract class Tarea{
 	 * @param prioridad Prioridad de la tarea.
 	 */
 	public Tarea(String descripcion, Propietario propietario, int ID,
-			boolean pendiente, ArrayList<Integer> dependencias, int prioridad) {
+			boolean pendiente, Conjunto_IDs dependencias, int prioridad) {
 		this.descripcion = descripcion;
 		this.propietario = propietario;
 		this.ID = ID;
@@ -127,16 +124,15 @@ public abstract class Tarea{
 	 * @throws Exception Si la tarea no contiene esa dependencia.
 	 */
 	public void eliminarDependencia(int dependencia) throws Exception {
-		if(!dependencias.contains(dependencia))
+		if(!dependencias.remove(dependencia))
 			throw new Exception("La tarea no depende de esa ID");
-		dependencias.remove(dependencias.indexOf(dependencia));
 	}
 	
 	/**
 	 * Mtodo que nos permite saber la lista de dependencias.
 	 * @return La lista de dependencias.
 	 */
-	public ArrayList<Integer> getDependencias(){
+	public Conjunto_IDs getDependencias(){
 		return dependencias;
 	}
 	
@@ -145,20 +141,7 @@ public abstract class Tarea{
 	 * @return Una cadena que contiene las ID de las dependencias.
 	 */
 	public String toStringDependencias(){
-		
-		if(dependencias.size() == 0) //Si la lista esta vaca, imprimo -
-			return "-";
-		
-		//Si no esta vaca, imprimo los ID
-		else{
-			String retorno = "";
-			for(Iterator<Integer> i = dependencias.iterator(); i.hasNext();){
-				retorno += i.next();
-				if(i.hasNext())
-					retorno += ",";
-			}
-			return retorno;
-		}
+		return dependencias.toStringComas();
 	}
 
 	/**
@@ -1,30 +1,42 @@
 package tareas;
 
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
+import java.text.ParseException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
 
 import usuarios.Propietario;
 
 /**
- * Clase que define una Tarea con una fecha de plazo
+ * Clase que define una Tarea con una fecha de plazo.<br>
+ * El plazo se guarda como los milisegundos transcurridos desde el 1 de enero de 1970 (<i>UTC</i>), y los formatos con
+ * los que se lee y se escribe son compartidos por todas las tareas, ya que no se modifican.
  * @author Jaime Alonso Lorenzo
  *
  */
 public class Tarea_con_plazo extends Tarea{
 	
 	/**
-	 * Fecha de plazo de la tarea.
+	 * Formato de la fecha de forma <i>dd/MM/yyyy:HH:mm</i>. Al leer admite tambin das, meses, horas y minutos de una
+	 * sola cifra.
 	 */
-	private Date fecha;
+	static final DateTimeFormatter FORMATO = new DateTimeFormatterBuilder().parseLenient().appendPattern("dd/MM/yyyy:HH:mm").toFormatter();
 	/**
-	 * Formato de la fecha de forma <i>dd/MM/yyyy:hh:mm</i>
+	 * Formato de la fecha de forma <i>dd/MM/yyyy</i>
 	 */
-	SimpleDateFormat formato = new SimpleDateFormat("dd/MM/yyyy:HH:mm");
+	static final DateTimeFormatter FORMATO_COMPACTO = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 	/**
-	 * Formato de la fecha de forma <i>dd/MM/yyyy</i>
+	 * Milisegundos que tiene un da.
+	 */
+	private static final long DIA = 1000L*3600*24;
+	
+	/**
+	 * Fecha de plazo de la tarea, en milisegundos desde el 1 de enero de 1970.
 	 */
-	SimpleDateFormat formato2 = new SimpleDateFormat("dd/MM/yyyy");
+	private long plazo;
 	
 	//CONSTRUCTORES DE LA CLASE
 	
@@ -36,18 +48,66 @@ public class Tarea_con_plazo extends Tarea{
 	 * @param pendiente Si la tarea está o no pendiente.
 	 * @param dependencias Lista de dependencias de la tarea.
 	 * @param prioridad Prioridad de la tarea.
-	 * @param fecha Fecha de plazo de la tarea.
-	 * @throws Exception Si la tarea no es posterior a la fecha actual.
+	 * @param fecha Fecha de plazo de la tarea, de la forma <i>dd/MM/yyyy:HH:mm</i>.
+	 * @throws Exception Si la fecha no tiene un formato vlido, o si la tarea no es posterior a la fecha actual.
+	 */
+	public Tarea_con_plazo(String descripcion, Propietario propietario, int ID, boolean pendiente, Conjunto_IDs dependencias, int prioridad, String fecha) throws Exception {
+		this(descripcion, propietario, ID, pendiente, dependencias, prioridad, leerFecha(fecha));
+	}
+	
+	/**
+	 * Constructor de una tarea con plazo a partir de una fecha ya construida.
+	 * @param descripcion Descripcin de la tarea.
+	 * @param propietario Propietario de la tarea.
+	 * @param ID Identificador numrico de la tarea.
+	 * @param pendiente Si la tarea est o no pendiente.
+	 * @param dependencias Lista de dependencias de la tarea.
+	 * @param prioridad Prioridad de la tarea.
+	 * @param plazo Fecha de plazo de la tarea, en milisegundos desde el 1 de enero de 1970.
+	 * @throws RuntimeException Si la tarea est pendiente y no es posterior a la fecha actual.
 	 */
-	public Tarea_con_plazo(String descripcion, Propietario propietario, int ID, boolean pendiente, ArrayList<Integer> dependencias, int prioridad, String fecha) throws Exception {
+	public Tarea_con_plazo(String descripcion, Propietario propietario, int ID, boolean pendiente, Conjunto_IDs dependencias, int prioridad, long plazo) {
+		this(descripcion, propietario, ID, pendiente, dependencias, prioridad, plazo, true);
+	}
+	
+	/**
+	 * Constructor de una tarea con plazo que permite no comprobar la fecha.
+	 * @param descripcion Descripcin de la tarea.
+	 * @param propietario Propietario de la tarea.
+	 * @param ID Identificador numrico de la tarea.
+	 * @param pendiente Si la tarea est o no pendiente.
+	 * @param dependencias Lista de dependencias de la tarea.
+	 * @param prioridad Prioridad de la tarea.
+	 * @param plazo Fecha de plazo de la tarea, en milisegundos desde el 1 de enero de 1970.
+	 * @param comprobar Si se debe comprobar que la fecha de una tarea pendiente es posterior a la actual.
+	 * @throws RuntimeException Si se comprueba la fecha y la tarea est pendiente y no es posterior a la fecha actual.
+	 */
+	private Tarea_con_plazo(String descripcion, Propietario propietario, int ID, boolean pendiente, Conjunto_IDs dependencias, int prioridad, long plazo, boolean comprobar) {
 		super(descripcion, propietario, ID, pendiente, dependencias, prioridad);
-		this.fecha = formato.parse(fecha);
+		this.plazo = plazo;
 		setTipo("con_plazo");
-		if(pendiente && !isFutura()){
+		if(comprobar && pendiente && !isFutura()){
 			throw new RuntimeException("Error 2: La fecha debe ser posterior a la actual.");
 		}
 	}
 	
+	/**
+	 * Mtodo que construye una tarea con plazo ya guardada, leda de los ficheros de datos o del diario de cambios.
+	 * No se comprueba que la fecha sea posterior a la actual, ya que se comprob al crearla, y las tareas cuyo plazo
+	 * ya ha pasado se cargan manteniendo su estado.
+	 * @param descripcion Descripcin de la tarea.
+	 * @param propietario Propietario de la tarea.
+	 * @param ID Identificador numrico de la tarea.
+	 * @param pendiente Si la tarea est o no pendiente.
+	 * @param dependencias Lista de dependencias de la tarea.
+	 * @param prioridad Prioridad de la tarea.
+	 * @param plazo Fecha de plazo de la tarea, en milisegundos desde el 1 de enero de 1970.
+	 * @return La tarea construida.
+	 */
+	public static Tarea_con_plazo cargar(String descripcion, Propietario propietario, int ID, boolean pendiente, Conjunto_IDs dependencias, int prioridad, long plazo){
+		return new Tarea_con_plazo(descripcion, propietario, ID, pendiente, dependencias, prioridad, plazo, false);
+	}
+	
 	/**
 	 * Constructor de una nueva tarea con plazo a partir de una tarea cualquiera.
 	 * @param t Tarea a la que se le añade un plazo.
@@ -62,10 +122,35 @@ public class Tarea_con_plazo extends Tarea{
 	
 	/**
 	 * Método que permite conseguir la fecha de plazo.
-	 * @return La fecha de plazo de la tarea.
+	 * @return La fecha de plazo de la tarea, en milisegundos desde el 1 de enero de 1970.
 	 */
-	public Date getFecha(){
-		return fecha;
+	public long getPlazo(){
+		return plazo;
+	}
+	
+	/**
+	 * Mtodo que convierte una fecha de la forma <i>dd/MM/yyyy:HH:mm</i>, en la zona horaria del sistema, en
+	 * milisegundos desde el 1 de enero de 1970.
+	 * @param fecha Fecha que se desea convertir.
+	 * @return Los milisegundos correspondientes a la fecha.
+	 * @throws ParseException Si la fecha no tiene un formato vlido.
+	 */
+	public static long leerFecha(String fecha) throws ParseException{
+		try{
+			return LocalDateTime.parse(fecha, FORMATO).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		}
+		catch(DateTimeParseException e){
+			throw new ParseException("Error 13: La fecha no tiene un formato vlido.", e.getErrorIndex());
+		}
+	}
+	
+	/**
+	 * Mtodo que da formato a la fecha de plazo, en la zona horaria del sistema.
+	 * @param formato Formato que se desea utilizar.
+	 * @return La fecha de plazo con el formato indicado.
+	 */
+	private String formatear(DateTimeFormatter formato){
+		return formato.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(plazo), ZoneId.systemDefault()));
 	}
 	
 	/**
@@ -77,7 +162,7 @@ public class Tarea_con_plazo extends Tarea{
 		if(t instanceof Tarea_simple)
 			return 1;
 		else
-			return this.fecha.compareTo(((Tarea_con_plazo)t).getFecha());
+			return Long.compare(plazo, ((Tarea_con_plazo)t).getPlazo());
 	}
 
 	/**
@@ -85,7 +170,7 @@ public class Tarea_con_plazo extends Tarea{
 	 * @return Una cadena que represente la fecha de plazo.
 	 */
 	public String toStringFecha() {
-		return formato.format(fecha);
+		return formatear(FORMATO);
 	}
 	
 	/**
@@ -93,7 +178,7 @@ public class Tarea_con_plazo extends Tarea{
 	 * @return Una cadena que representa la fecha de forma <i>dd/MM/yyyy</i>
 	 */
 	public String toStringFechaCompacta(){
-		return formato2.format(fecha);
+		return formatear(FORMATO_COMPACTO);
 	}
 	
 	/**
@@ -101,10 +186,7 @@ public class Tarea_con_plazo extends Tarea{
 	 * @return El n�mero de d�as que quedan hasta el plazo.
 	 */
 	public int getDias(){
-		Date actual = new Date();
-		long milisegundos = getFecha().getTime() - actual.getTime();
-		long dias = milisegundos/(1000*3600*24);
-		return (int)dias;
+		return (int)((plazo - System.currentTimeMillis())/DIA);
 	}
 	
 	//M�TODOS TOSTRING SOBREESCRITOS
@@ -132,7 +214,7 @@ public class Tarea_con_plazo extends Tarea{
 	 * @return true si la tarea es futura, false si es pasada.
 	 */
 	private boolean isFutura(){
-		return (getFecha().compareTo(new Date()) == 1);
+		return plazo > System.currentTimeMillis();
 	}
 
 	@Override
@@ -147,12 +229,7 @@ public class Tarea_con_plazo extends Tarea{
 		if (!(obj instanceof Tarea_con_plazo))
 			return false;
 		Tarea_con_plazo other = (Tarea_con_plazo) obj;
-		if (fecha == null) {
-			if (other.fecha != null)
-				return false;
-		} else if (!fecha.equals(other.fecha))
-			return false;
-		return true;
+		return plazo == other.plazo;
 	}
 
 
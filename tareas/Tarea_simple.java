@@ -1,6 +1,5 @@
 package tareas;
 
-import java.util.ArrayList;
 
 import usuarios.Propietario;
 
@@ -20,7 +19,7 @@ public class Tarea_simple extends Tarea{
 	 * @param dependencias Lista de dependencias de la tarea.
 	 * @param prioridad Prioridad de la tarea.
 	 */
-	public Tarea_simple(String descripcion, Propietario propietario, int ID, boolean pendiente, ArrayList<Integer> dependencias, int prioridad) {
+	public Tarea_simple(String descripcion, Propietario propietario, int ID, boolean pendiente, Conjunto_IDs dependencias, int prioridad) {
 		super(descripcion, propietario, ID, pendiente, dependencias, prioridad);
 		setTipo("simple");
 	}
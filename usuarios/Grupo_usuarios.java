@@ -1,5 +1,6 @@
 package usuarios;
 
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 
@@ -15,6 +16,12 @@ public class Grupo_usuarios extends Propietario {
 	 */
 	private LinkedList<Usuario> usuarios = new LinkedList<Usuario>();
 	
+	/**
+	 * Conjunto de los usuarios del grupo, que se mantiene sincronizado con la lista {@link #usuarios} para saber en
+	 * tiempo constante si un usuario pertenece al grupo.
+	 */
+	private HashSet<Usuario> miembros = new HashSet<Usuario>();
+	
 	/**
 	 * Constructor del grupo de usuarios.
 	 * @param nombre El nombre del grupo de usuarios.
@@ -25,6 +32,7 @@ public class Grupo_usuarios extends Propietario {
 	
 	/**
 	 * Mtodo que permite conocer la lista de los usuarios pertenecientes a este grupo.
+	 * La lista no se debe modificar directamente, sino con {@link #addUsuario(Usuario)} y {@link #delUsuario(Usuario)}.
 	 * @return Una lista con todos los usuarios que pertenecen a este grupo.
 	 */
 	public LinkedList<Usuario> getUsuarios(){
@@ -37,6 +45,7 @@ public class Grupo_usuarios extends Propietario {
 	 */
 	public void addUsuario(Usuario usuario){
 		usuarios.add(usuario);
+		miembros.add(usuario);
 	}
 	
 	/**
@@ -45,59 +54,17 @@ public class Grupo_usuarios extends Propietario {
 	 */
 	public void delUsuario(Usuario usuario){
 		usuarios.remove(usuario);
+		if(!usuarios.contains(usuario))
+			miembros.remove(usuario);
 	}
 	
 	/**
-	 * Mtodo que permite aadir una solicitud de admisin para este grupo.
-	 * Aade al grupo un usuario que es una copia del usuario especificado, pero con su nombre terminado en la etiqueta <b>&lt;T&gt;</b>.
-	 * @param usuario Usuario que desea hacer la solicitud al grupo.
-	 * @throws Exception Si no se soporta la clonacin del objeto usuario.
-	 */
-	public void addSolicitud(Usuario usuario) throws Exception{
-		Usuario u = (Usuario) usuario.clone();
-		u.setNombre(u.getNombre()+"<T>");
-		addUsuario(u);
-	}
-	
-	/**
-	 * Mtodo que permite aadir una invitacin a entrar en este grupo.
-	 * Aade al grupo un usuario que es una copia del usuario especificado, pero con su nombre terminado en la etiqueta <b>&lt;I&gt;</b>.
-	 * @param usuario Usuario que se desea invitar al grupo.
-	 * @throws Exception Si no se soporta la clonacin del objeto usuario.
-	 */
-	public void addInvitacion(Usuario usuario) throws Exception{
-		Usuario u = (Usuario) usuario.clone();
-		u.setNombre(u.getNombre()+"<I>");
-		addUsuario(u);
-	}
-
-	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj))
-			return false;
-		if (!(obj instanceof Grupo_usuarios))
-			return false;
-		Grupo_usuarios other = (Grupo_usuarios) obj;
-		if (usuarios == null) {
-			if (other.usuarios != null)
-				return false;
-		} else if (!usuarios.equals(other.usuarios))
-			return false;
-		return true;
-	}
-
-	/**
-	 * Mtodo que nos permite saber si el usuario indicado pertenece al grupo.
+	 * Mtodo que nos permite saber si el usuario indicado pertenece al grupo, en tiempo constante.
 	 * @param usuario Usuario que se desea buscar.
 	 * @return true si pertenece al grupo, false si no pertenece.
 	 */
 	public boolean estaUsuario(Usuario usuario){
-		if(usuarios.contains(usuario)) 
-			return true;
-		else
-			return false;
+		return miembros.contains(usuario);
 	}	
 	
 	/**
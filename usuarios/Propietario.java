@@ -2,6 +2,8 @@ package usuarios;
 
 /**
  * Clase abstracta que define las caractersticas del propietario de una tarea.
+ * Un propietario se identifica por su clase y su nombre: dos propietarios son iguales segn {@link #equals(Object)}
+ * si son del mismo tipo y tienen el mismo nombre, lo cual permite usarlos en tablas hash.
  * @author Jaime Alonso Lorenzo
  *
  */
@@ -12,6 +14,11 @@ public abstract class Propietario {
 	 */
 	private String nombre;
 	
+	/**
+	 * Cdigo hash del propietario, calculado a partir de su clase y su nombre cada vez que cambia el nombre.
+	 */
+	private int hash;
+	
 	/**
 	 * Mtodo que permite al usuario saber el nombre del propietario.
 	 * @return El nombre del propietario.
@@ -26,6 +33,7 @@ public abstract class Propietario {
 	 */
 	public void setNombre(String nombre) {
 		this.nombre = nombre;
+		this.hash = 31*getClass().getName().hashCode() + ((nombre == null) ? 0 : nombre.hashCode());
 	}
 	
 	/**
@@ -36,6 +44,11 @@ public abstract class Propietario {
 		return nombre;
 	}
 
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
@@ -45,12 +58,14 @@ public abstract class Propietario {
 		if (!(obj instanceof Propietario))
 			return false;
 		Propietario other = (Propietario) obj;
+		if (hash != other.hash)
+			return false;
 		if (nombre == null) {
 			if (other.nombre != null)
 				return false;
 		} else if (!nombre.equals(other.nombre))
 			return false;
-		if(!this.getClass().isInstance(other))
+		if(this.getClass() != other.getClass())
 			return false;
 		return true;
 	}
@@ -0,0 +1,189 @@
+package usuarios;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+
+/**
+ * Clase que guarda las invitaciones y las solicitudes de admisin a los grupos que an no se han respondido.
+ * Cada invitacin y cada solicitud relaciona un usuario con un grupo, y se guarda indexada tanto por el usuario como
+ * por el grupo, de modo que se pueden obtener las pendientes de uno u otro sin recorrer todos los grupos.
+ * Dentro de cada ndice se conserva el orden en el que se hicieron.
+ * @author Jaime Alonso Lorenzo
+ *
+ */
+public class Registro_pendientes {
+
+	/**
+	 * Grupos a los que se ha invitado a cada usuario.
+	 */
+	private HashMap<Usuario, LinkedHashSet<Grupo_usuarios>> invitaciones = new HashMap<Usuario, LinkedHashSet<Grupo_usuarios>>();
+
+	/**
+	 * Usuarios a los que se ha invitado a cada grupo.
+	 */
+	private HashMap<Grupo_usuarios, LinkedHashSet<Usuario>> invitados = new HashMap<Grupo_usuarios, LinkedHashSet<Usuario>>();
+
+	/**
+	 * Grupos a los que ha solicitado entrar cada usuario.
+	 */
+	private HashMap<Usuario, LinkedHashSet<Grupo_usuarios>> solicitudes = new HashMap<Usuario, LinkedHashSet<Grupo_usuarios>>();
+
+	/**
+	 * Usuarios que han solicitado entrar en cada grupo.
+	 */
+	private HashMap<Grupo_usuarios, LinkedHashSet<Usuario>> solicitantes = new HashMap<Grupo_usuarios, LinkedHashSet<Usuario>>();
+
+	/**
+	 * Mtodo que registra una invitacin a un grupo.
+	 * @param usuario Usuario invitado.
+	 * @param grupo Grupo al que se le invita.
+	 * @return true si la invitacin es nueva, false si ya exista.
+	 */
+	public boolean addInvitacion(Usuario usuario, Grupo_usuarios grupo){
+		return enlazar(invitaciones, usuario, grupo) & enlazar(invitados, grupo, usuario);
+	}
+
+	/**
+	 * Mtodo que elimina una invitacin a un grupo, una vez respondida.
+	 * @param usuario Usuario invitado.
+	 * @param grupo Grupo al que se le invit.
+	 * @return true si la invitacin exista.
+	 */
+	public boolean delInvitacion(Usuario usuario, Grupo_usuarios grupo){
+		return desenlazar(invitaciones, usuario, grupo) & desenlazar(invitados, grupo, usuario);
+	}
+
+	/**
+	 * Mtodo que indica si un usuario tiene una invitacin pendiente a un grupo.
+	 * @param usuario Usuario que se desea consultar.
+	 * @param grupo Grupo que se desea consultar.
+	 * @return true si hay una invitacin pendiente.
+	 */
+	public boolean estaInvitado(Usuario usuario, Grupo_usuarios grupo){
+		LinkedHashSet<Grupo_usuarios> grupos = invitaciones.get(usuario);
+		return grupos != null && grupos.contains(grupo);
+	}
+
+	/**
+	 * Mtodo que devuelve los grupos a los que se ha invitado a un usuario.
+	 * @param usuario Usuario que se desea consultar.
+	 * @return Una lista nueva con los grupos, en el orden de las invitaciones.
+	 */
+	public LinkedList<Grupo_usuarios> getInvitaciones(Usuario usuario){
+		return copiar(invitaciones.get(usuario));
+	}
+
+	/**
+	 * Mtodo que devuelve los usuarios a los que se ha invitado a un grupo.
+	 * @param grupo Grupo que se desea consultar.
+	 * @return Una lista nueva con los usuarios, en el orden de las invitaciones.
+	 */
+	public LinkedList<Usuario> getInvitados(Grupo_usuarios grupo){
+		return copiar(invitados.get(grupo));
+	}
+
+	/**
+	 * Mtodo que registra una solicitud de admisin a un grupo.
+	 * @param usuario Usuario que hace la solicitud.
+	 * @param grupo Grupo al que desea entrar.
+	 * @return true si la solicitud es nueva, false si ya exista.
+	 */
+	public boolean addSolicitud(Usuario usuario, Grupo_usuarios grupo){
+		return enlazar(solicitudes, usuario, grupo) & enlazar(solicitantes, grupo, usuario);
+	}
+
+	/**
+	 * Mtodo que elimina una solicitud de admisin a un grupo, una vez respondida.
+	 * @param usuario Usuario que hizo la solicitud.
+	 * @param grupo Grupo al que deseaba entrar.
+	 * @return true si la solicitud exista.
+	 */
+	public boolean delSolicitud(Usuario usuario, Grupo_usuarios grupo){
+		return desenlazar(solicitudes, usuario, grupo) & desenlazar(solicitantes, grupo, usuario);
+	}
+
+	/**
+	 * Mtodo que indica si un usuario tiene una solicitud pendiente para entrar en un grupo.
+	 * @param usuario Usuario que se desea consultar.
+	 * @param grupo Grupo que se desea consultar.
+	 * @return true si hay una solicitud pendiente.
+	 */
+	public boolean haSolicitado(Usuario usuario, Grupo_usuarios grupo){
+		LinkedHashSet<Grupo_usuarios> grupos = solicitudes.get(usuario);
+		return grupos != null && grupos.contains(grupo);
+	}
+
+	/**
+	 * Mtodo que devuelve los grupos a los que ha solicitado entrar un usuario.
+	 * @param usuario Usuario que se desea consultar.
+	 * @return Una lista nueva con los grupos, en el orden de las solicitudes.
+	 */
+	public LinkedList<Grupo_usuarios> getSolicitudes(Usuario usuario){
+		return copiar(solicitudes.get(usuario));
+	}
+
+	/**
+	 * Mtodo que devuelve los usuarios que han solicitado entrar en un grupo.
+	 * @param grupo Grupo que se desea consultar.
+	 * @return Una lista nueva con los usuarios, en el orden de las solicitudes.
+	 */
+	public LinkedList<Usuario> getSolicitantes(Grupo_usuarios grupo){
+		return copiar(solicitantes.get(grupo));
+	}
+
+	/**
+	 * Mtodo que elimina todas las invitaciones y solicitudes de un grupo, cuando el grupo deja de existir.
+	 * @param grupo Grupo eliminado.
+	 */
+	public void delGrupo(Grupo_usuarios grupo){
+		for(Usuario u : getInvitados(grupo))
+			delInvitacion(u, grupo);
+		for(Usuario u : getSolicitantes(grupo))
+			delSolicitud(u, grupo);
+	}
+
+	/**
+	 * Mtodo que aade un elemento al conjunto asociado a una clave, crendolo si no existe.
+	 * @param indice ndice en el que se aade.
+	 * @param clave Clave del conjunto.
+	 * @param valor Elemento que se aade.
+	 * @return true si el elemento no estaba ya en el conjunto.
+	 */
+	private static <K, V> boolean enlazar(HashMap<K, LinkedHashSet<V>> indice, K clave, V valor){
+		LinkedHashSet<V> conjunto = indice.get(clave);
+		if(conjunto == null){
+			conjunto = new LinkedHashSet<V>();
+			indice.put(clave, conjunto);
+		}
+		return conjunto.add(valor);
+	}
+
+	/**
+	 * Mtodo que quita un elemento del conjunto asociado a una clave, y el conjunto si se queda vaco.
+	 * @param indice ndice del que se quita.
+	 * @param clave Clave del conjunto.
+	 * @param valor Elemento que se quita.
+	 * @return true si el elemento estaba en el conjunto.
+	 */
+	private static <K, V> boolean desenlazar(HashMap<K, LinkedHashSet<V>> indice, K clave, V valor){
+		LinkedHashSet<V> conjunto = indice.get(clave);
+		if(conjunto == null || !conjunto.remove(valor))
+			return false;
+		if(conjunto.isEmpty())
+			indice.remove(clave);
+		return true;
+	}
+
+	/**
+	 * Mtodo que copia un conjunto en una lista nueva, para que se pueda modificar el registro mientras se recorre.
+	 * @param conjunto Conjunto que se copia, o null.
+	 * @return Una lista con los elementos del conjunto, vaca si es null.
+	 */
+	private static <T> LinkedList<T> copiar(LinkedHashSet<T> conjunto){
+		LinkedList<T> lista = new LinkedList<T>();
+		if(conjunto != null)
+			lista.addAll(conjunto);
+		return lista;
+	}
+}
@@ -73,38 +73,4 @@ public class Usuario extends Propietario {
 	public String toStringTXT(){
 		return getNombre()+": "+email;
 	}
-	
-	@Override
-	public Object clone() throws CloneNotSupportedException {
-		Object obj = new Usuario(getNombre());
-		((Usuario)obj).setEmail(getEmail());
-		return obj;
-	}
-
-	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj))
-			return false;
-		if (!(obj instanceof Usuario))
-			return false;
-		Usuario other = (Usuario) obj;
-		if (email == null) {
-			if (other.email != null)
-				return false;
-		} else if (!email.equals(other.email))
-			return false;
-		String grupos = new String();
-		for(Grupo_usuarios g : this.grupos){
-			grupos += g.getNombre();
-		}
-		String grupos_other = new String();
-		for(Grupo_usuarios g : other.grupos){
-			grupos_other += g.getNombre();
-		}
-		if(!grupos.equals(grupos_other))
-			return false;
-		return true;
-	}
 }